@@ -0,0 +1,37 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * benchmark 용 애플리케이션 - 웹 서버 없이, benchmark 마다 따로 쓰는 H2 메모리 DB
+ * prod 프로필로 SQL 로그를 끄고 (로그 출력이 측정을 덮지 않도록) 백그라운드 relay 도 끈다.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "--spring.profiles.active=prod",
+                "--spring.main.banner-mode=off",
+                "--spring.devtools.restart.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.cache.region_prefix=" + database,
+                "--spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+                "--jpashop.outbox.relay.enabled=false",
+                "--jpashop.sql.slow-sample-rate=0", //데이터를 넣는 batch insert 가 slow query 로그로 남지 않도록
+                "--logging.level.root=warn"));
+        arguments.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.benchmark;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * benchmark 데이터 - 같은 seed 면 항상 같은 데이터 (결과를 기준값과 비교할 수 있도록)
+ * JPA 대신 JDBC batch insert 로 넣고, 시퀀스는 넣은 id 다음부터 쓰도록 다시 맞춘다.
+ * 회원 이름은 "회원0000001" 형식, 주문은 앞쪽 회원에 몰리도록 (일부 회원이 주문 대부분)
+ */
+final class BenchmarkDataset {
+
+    static final long SEED = 20211130L;
+    static final int ITEMS = 100;
+    private static final int BATCH_SIZE = 1000;
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    private BenchmarkDataset() {
+    }
+
+    static String memberName(int index) {
+        return String.format("회원%07d", index);
+    }
+
+    /** 회원 members 명, 상품 ITEMS 개, 주문 orders 건 (주문마다 배송 1, 주문상품 1) */
+    static void seed(DataSource dataSource, int members, int orders) throws SQLException {
+        Random random = new Random(SEED);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            insertMembers(connection, members);
+            insertItems(connection, random);
+            insertOrders(connection, random, members, orders);
+            //pooled-lo 는 시퀀스에서 받은 값부터 쓰므로 넣은 id 바로 다음부터
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("alter sequence member_seq restart with " + (members + 1));
+                statement.execute("alter sequence item_seq restart with " + (ITEMS + 1));
+                statement.execute("alter sequence delivery_seq restart with " + (orders + 1));
+                statement.execute("alter sequence order_seq restart with " + (orders + 1));
+                statement.execute("alter sequence order_item_seq restart with " + (orders + 1));
+            }
+            connection.commit();
+        }
+    }
+
+    private static void insertMembers(Connection connection, int members) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into member (member_id, name, normalized_name, city, street, zipcode) values (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= members; i++) {
+                String name = memberName(i);
+                statement.setLong(1, i);
+                statement.setString(2, name);
+                statement.setString(3, name);
+                statement.setString(4, "서울");
+                statement.setString(5, "강가" + i);
+                statement.setString(6, "123-123");
+                addBatch(statement, i);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void insertItems(Connection connection, Random random) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into item (item_id, dtype, name, price, stock_quantity, version, author, isbn)"
+                        + " values (?, 'B', ?, ?, ?, 0, ?, ?)")) {
+            for (int i = 1; i <= ITEMS; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "책" + i);
+                statement.setInt(3, (1 + random.nextInt(50)) * 1000);
+                statement.setInt(4, 1_000_000);
+                statement.setString(5, "저자" + i);
+                statement.setString(6, String.format("isbn-%05d", i));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void insertOrders(Connection connection, Random random, int members, int orders) throws SQLException {
+        try (PreparedStatement delivery = connection.prepareStatement(
+                "insert into delivery (delivery_id, city, street, zipcode, status) values (?, '서울', '강가', '123-123', ?)");
+             PreparedStatement order = connection.prepareStatement(
+                     "insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, ?)");
+             PreparedStatement orderItem = connection.prepareStatement(
+                     "insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= orders; i++) {
+                //제곱으로 앞쪽 회원에 몰리게
+                double skew = random.nextDouble();
+                int memberId = 1 + (int) (skew * skew * members);
+                boolean cancelled = random.nextInt(10) == 0;
+                delivery.setLong(1, i);
+                delivery.setString(2, cancelled || random.nextBoolean() ? "READY" : "COMP");
+                order.setLong(1, i);
+                order.setLong(2, memberId);
+                order.setLong(3, i);
+                order.setTimestamp(4, Timestamp.valueOf(BASE_DATE.plusMinutes(i)));
+                order.setString(5, cancelled ? "CANCEL" : "ORDER");
+                orderItem.setLong(1, i);
+                orderItem.setLong(2, i);
+                orderItem.setLong(3, 1 + random.nextInt(ITEMS));
+                orderItem.setInt(4, (1 + random.nextInt(50)) * 1000);
+                orderItem.setInt(5, 1 + random.nextInt(3));
+                delivery.addBatch();
+                order.addBatch();
+                orderItem.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    //fk 순서대로 (배송 -> 주문 -> 주문상품)
+                    delivery.executeBatch();
+                    order.executeBatch();
+                    orderItem.executeBatch();
+                    connection.commit();
+                }
+            }
+            delivery.executeBatch();
+            order.executeBatch();
+            orderItem.executeBatch();
+        }
+    }
+
+    private static void addBatch(PreparedStatement statement, int count) throws SQLException {
+        statement.addBatch();
+        if (count % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 10만건 대량 저장 - 시퀀스 allocation_size 1 (insert 마다 시퀀스 호출) vs 50 (pooled-lo, 50 건마다 한번)
+ * 주문마다 회원, 배송, 주문, 주문상품 4 행이라 시퀀스 호출이 1 이면 40만번, 50 이면 8천번
+ * allocation_size 는 시퀀스 increment 와 같아야 하므로 1 은 benchmark 전용 마이그레이션 (db/benchmark/increment-1) 을 더해서 띄운다.
+ * H2 메모리 DB 는 시퀀스 호출이 네트워크를 타지 않아서 차이가 15% 정도 (11.0 s -> 9.3 s), TCP 로 붙는 DB 면 호출마다 왕복이 더해진다.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime) //한번 = 주문 10만건
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkInsertBenchmark {
+
+    private static final int ORDERS = 100_000;
+    private static final int CHUNK = 1000; // 트랜잭션 하나에 저장할 주문 수
+
+    @Param({"1", "50"})
+    int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+    private DataSource dataSource;
+
+    @Setup
+    public void setUp() throws Exception {
+        String locations = allocationSize == 1 ? "classpath:db/migration,classpath:db/benchmark/increment-1" : "classpath:db/migration";
+        context = BenchmarkApplication.start("bulk" + allocationSize,
+                "--spring.flyway.locations=" + locations,
+                "--spring.jpa.properties.jpashop.id.allocation_size=" + allocationSize);
+        dataSource = context.getBean(DataSource.class);
+        BenchmarkDataset.seed(dataSource, 0, 0); //상품만
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteOrders() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("delete from order_item");
+            statement.execute("delete from orders");
+            statement.execute("delete from delivery");
+            statement.execute("delete from member");
+        }
+        emf.getCache().evictAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** 회원은 주문마다 새로 (기존 회원이면 member.orders 를 읽어야 하므로) */
+    @Benchmark
+    public int insertOrders() {
+        for (int start = 0; start < ORDERS; start += CHUNK) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                for (int i = start; i < start + CHUNK; i++) {
+                    Member member = new Member();
+                    member.setName("대량회원" + i);
+                    member.setAddress(new Address("서울", "강가", "123-123"));
+                    em.persist(member);
+                    Delivery delivery = new Delivery();
+                    delivery.setAddress(member.getAddress());
+                    delivery.setStatus(DeliveryStatus.READY);
+                    Item item = em.getReference(Item.class, (long) (1 + i % BenchmarkDataset.ITEMS));
+                    em.persist(Order.createOrder(member, delivery, OrderItem.createOrderItem(item, 10000, 1)));
+                }
+                em.getTransaction().commit();
+            } finally {
+                em.close();
+            }
+        }
+        return ORDERS;
+    }
+}
@@ -0,0 +1,116 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.service.CategoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 하위 카테고리 전체 상품 - 연관관계를 재귀로 따라가기(lazy loading) vs 캐시된 트리의 path 로 쿼리 한번
+ * 카테고리 1 + 4 + ... + 4^6 = 5461, 상품은 맨 아래 카테고리마다 하나 (4096)
+ * recursive 는 요청마다 새 영속성 컨텍스트로 루트부터 읽는다.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CategoryHierarchyBenchmark {
+
+    private static final int DEPTH = 6;
+    private static final int WIDTH = 4;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private CategoryService categoryService;
+    private Long rootId;
+    private int items;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("categories");
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        categoryService = context.getBean(CategoryService.class);
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            Category root = new Category();
+            root.setName("벤치 루트");
+            items = createTree(itemRepository, root, 0);
+            categoryRepository.save(root);
+            rootId = root.getId();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int recursive() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            Set<Long> itemIds = new HashSet<>();
+            collectItems(em.find(Category.class, rootId), itemIds);
+            return itemIds.size();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public int path() {
+        return categoryService.findItems(rootId, null, items + 1).size();
+    }
+
+    private static int createTree(ItemRepository itemRepository, Category category, int depth) {
+        if (depth == DEPTH) {
+            Book book = new Book();
+            book.setName(category.getName() + " 상품");
+            itemRepository.save(book);
+            category.getItems().add(book);
+            return 1;
+        }
+        int items = 0;
+        for (int i = 0; i < WIDTH; i++) {
+            Category child = new Category();
+            child.setName(category.getName() + "-" + i);
+            category.addChildCategory(child);
+            items += createTree(itemRepository, child, depth + 1);
+        }
+        return items;
+    }
+
+    private static void collectItems(Category category, Set<Long> itemIds) {
+        for (Item item : category.getItems()) {
+            itemIds.add(item.getId());
+        }
+        for (Category child : category.getChild()) {
+            collectItems(child, itemIds);
+        }
+    }
+}
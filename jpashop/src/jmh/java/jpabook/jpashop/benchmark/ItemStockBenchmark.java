@@ -0,0 +1,91 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.service.StockService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StockService.removeStock (재고 조건부 update) - 4 스레드가 상품 하나(contended) vs 스레드마다 다른 상품(uncontended)
+ * 차감마다 트랜잭션 하나. contended 는 같은 row lock 을 두고 기다리는 비용이 보인다.
+ * 재고는 iteration 마다 다시 채우므로 측정 중에 재고 부족은 나지 않는다.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class ItemStockBenchmark {
+
+    private static final long SHARED_ITEM = 1L;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private final AtomicInteger nextItem = new AtomicInteger(1);
+
+    @State(Scope.Thread)
+    public static class ThreadItem {
+        long itemId;
+
+        @Setup
+        public void setUp(ItemStockBenchmark benchmark) {
+            itemId = SHARED_ITEM + benchmark.nextItem.getAndIncrement();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("itemStock");
+        DataSource dataSource = context.getBean(DataSource.class);
+        BenchmarkDataset.seed(dataSource, 1, 0);
+        stockService = context.getBean(StockService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillStock() {
+        jdbcTemplate.update("update item set stock_quantity = ?", Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void contended() {
+        removeStock(SHARED_ITEM);
+    }
+
+    @Benchmark
+    public void uncontended(ThreadItem own) {
+        removeStock(own.itemId);
+    }
+
+    private void removeStock(long itemId) {
+        transactionTemplate.executeWithoutResult(status -> stockService.removeStock(itemId, 1));
+    }
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.api.MemberApiController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 목록 v1(entity 그대로) vs v2(DTO) vs v3(keyset 페이지) - 조회 + JSON 직렬화 (HTTP 없이 controller 와 spring 의 ObjectMapper)
+ * v3Page 는 첫 페이지 한번, v3AllPages 는 nextCursor 를 따라 전체를 끝까지 읽는 비용
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberApiBenchmark {
+
+    private static final int MEMBERS = 1000;
+    private static final int PAGE_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private MemberApiController memberApiController;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("members");
+        BenchmarkDataset.seed(context.getBean(DataSource.class), MEMBERS, 0);
+        memberApiController = context.getBean(MemberApiController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] v1() throws Exception {
+        return objectMapper.writeValueAsBytes(memberApiController.membersV1());
+    }
+
+    @Benchmark
+    public byte[] v2() throws Exception {
+        return objectMapper.writeValueAsBytes(memberApiController.memberV2());
+    }
+
+    @Benchmark
+    public byte[] v3Page() throws Exception {
+        return objectMapper.writeValueAsBytes(memberApiController.membersV3(null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public int v3AllPages() throws Exception {
+        int bytes = 0;
+        Long cursor = null;
+        do {
+            MemberApiController.MemberPage page = memberApiController.membersV3(cursor, PAGE_SIZE);
+            bytes += objectMapper.writeValueAsBytes(page).length;
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return bytes;
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberService.join - 회원 1만명이 있는 DB 에 새 이름으로 가입 (중복 검사 + insert + commit)
+ * joinLatency 는 같은 가입을 SampleTime 으로 - p50 / p99 지연시간
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 20, time = 2) //가입은 insert + commit 경로까지 JIT 가 자리잡는데 더 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberServiceBenchmark {
+
+    private static final int MEMBERS = 10000;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private MemberService memberService;
+    private Address address;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("join");
+        BenchmarkDataset.seed(context.getBean(DataSource.class), MEMBERS, 0);
+        memberService = context.getBean(MemberService.class);
+        address = new Address("서울", "강가", "123-123");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long join() {
+        Member member = new Member();
+        member.setName("가입회원" + sequence.incrementAndGet());
+        member.setAddress(address);
+        return memberService.join(member);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Long joinLatency() {
+        return join();
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.service.OrderFacade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 주문 처리량 - 8 스레드가 OrderFacade 로 주문 (재고 조건부 update + 충돌 재시도)
+ * - hotItem     : 모두 같은 상품 하나 (같은 row 를 두고 경쟁)
+ * - spreadItems : 상품 ITEMS 개 중 아무거나
+ * - cart        : 상품 3 개 장바구니 주문
+ * 상품 재고는 100만개라 측정 중에 재고 부족은 나지 않는다.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class OrderConcurrencyBenchmark {
+
+    private static final int MEMBERS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private OrderFacade orderFacade;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("concurrentOrders");
+        BenchmarkDataset.seed(context.getBean(DataSource.class), MEMBERS, 0);
+        orderFacade = context.getBean(OrderFacade.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long hotItem() {
+        return orderFacade.order(member(), 1L, 1);
+    }
+
+    @Benchmark
+    public Long spreadItems() {
+        return orderFacade.order(member(), item(), 1);
+    }
+
+    @Benchmark
+    public Long cart() {
+        long first = item();
+        long second = first % BenchmarkDataset.ITEMS + 1;
+        long third = second % BenchmarkDataset.ITEMS + 1;
+        return orderFacade.order(member(), Map.of(first, 1, second, 2, third, 1));
+    }
+
+    private static long member() {
+        return 1 + ThreadLocalRandom.current().nextInt(MEMBERS);
+    }
+
+    private static long item() {
+        return 1 + ThreadLocalRandom.current().nextInt(BenchmarkDataset.ITEMS);
+    }
+}
@@ -0,0 +1,80 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 도메인 - 생성, 전체 가격, 취소 (DB 없이 entity 메서드만)
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderDomainBenchmark {
+
+    private static final int ORDER_ITEMS = 5;
+
+    private Address address;
+    private Book[] books;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        address = new Address("서울", "강가", "123-123");
+        books = new Book[ORDER_ITEMS];
+        for (int i = 0; i < ORDER_ITEMS; i++) {
+            Book book = new Book();
+            book.setName("책" + i);
+            book.setPrice(10000 + i * 1000);
+            book.setStockQuantity(100);
+            books[i] = book;
+        }
+        order = createOrder();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        //회원마다 주문 목록이 쌓이지 않도록 호출마다 새 회원
+        Member member = new Member();
+        member.setName("주문회원");
+        member.setAddress(address);
+        Delivery delivery = new Delivery();
+        delivery.setAddress(address);
+        delivery.setStatus(DeliveryStatus.READY);
+        OrderItem[] orderItems = new OrderItem[ORDER_ITEMS];
+        for (int i = 0; i < ORDER_ITEMS; i++) {
+            orderItems[i] = OrderItem.createOrderItem(books[i], books[i].getPrice(), i + 1);
+        }
+        return Order.createOrder(member, delivery, orderItems);
+    }
+
+    @Benchmark
+    public int getTotalPrice() {
+        return order.getTotalPrice();
+    }
+
+    @Benchmark
+    public Order cancel() {
+        order.cancel();
+        return order;
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.OrderEvent;
+import jpabook.jpashop.domain.OrderEventType;
+import jpabook.jpashop.repository.OrderEventRepository;
+import jpabook.jpashop.service.OrderEventRelay;
+import jpabook.jpashop.service.OrderEventSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * outbox relay 처리량 - 쌓인 이벤트 EVENTS 개를 batchSize 씩 읽어서 sink(application event + 파일)로 보내고 삭제
+ * 이벤트는 invocation 마다 다시 쌓는다. (측정에서 빠짐)
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderEventRelayBenchmark {
+
+    private static final int EVENTS = 2000;
+
+    @Param({"100", "500"})
+    int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderEventRepository orderEventRepository;
+    private TransactionTemplate transactionTemplate;
+    private OrderEventRelay relay;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("jpashop-outbox-benchmark");
+        context = BenchmarkApplication.start("outbox" + batchSize,
+                "--jpashop.outbox.file-sink.path=" + directory.resolve("events.jsonl"));
+        orderEventRepository = context.getBean(OrderEventRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        //BenchmarkApplication 은 주기 실행 relay 를 끄므로 직접 만든다
+        relay = new OrderEventRelay(context.getBeanProvider(OrderEventSink.class).orderedStream().collect(Collectors.toList()),
+                orderEventRepository, transactionManager, batchSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillOutbox() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < EVENTS; i++) {
+                orderEventRepository.save(OrderEvent.create(OrderEventType.STOCK_CHANGED, (long) i,
+                        "{\"itemId\":" + i + ",\"quantity\":-1}"));
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        Files.deleteIfExists(directory.resolve("events.jsonl"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int relay() {
+        return relay.relay();
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 이름 검색 쿼리 만들기 (실행하지 않음)
+ * - literal : 검색값을 JPQL 에 붙여서 매번 다른 문자열 -> 매번 파싱 (plan cache 도 계속 밀려남)
+ * - builder : OrderQueryBuilder 의 정규화된 JPQL + 파라미터 -> plan cache hit
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderQueryBuilderBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("queryPlan");
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Order> literal() {
+        return em.createQuery("select o from Order o join o.member m where m.name like 'kim" + sequence++ + "%'", Order.class);
+    }
+
+    @Benchmark
+    public TypedQuery<Order> builder() {
+        return new OrderQueryBuilder().memberNamePrefix("kim" + sequence++).build(em, 10);
+    }
+}
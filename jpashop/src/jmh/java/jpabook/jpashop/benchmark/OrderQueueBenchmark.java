@@ -0,0 +1,89 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.service.OrderFacade;
+import jpabook.jpashop.service.OrderQueue;
+import jpabook.jpashop.service.OrderTicket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 ORDERS 건 처리량 - 비동기 큐(worker 4, batch 50)에 넣고 모두 끝날 때까지 vs OrderFacade 로 한건씩
+ * 주문은 매번 같은 회원 / 상품 순서 (seed 고정)
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderQueueBenchmark {
+
+    private static final int MEMBERS = 1000;
+    private static final int ORDERS = 200;
+
+    private ConfigurableApplicationContext context;
+    private OrderQueue orderQueue;
+    private OrderFacade orderFacade;
+    private final long[] memberIds = new long[ORDERS];
+    private final long[] itemIds = new long[ORDERS];
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("orderQueue", "--jpashop.order.async.enabled=true");
+        BenchmarkDataset.seed(context.getBean(DataSource.class), MEMBERS, 0);
+        orderQueue = context.getBean(OrderQueue.class);
+        orderFacade = context.getBean(OrderFacade.class);
+        Random random = new Random(BenchmarkDataset.SEED);
+        for (int i = 0; i < ORDERS; i++) {
+            memberIds[i] = 1 + random.nextInt(MEMBERS);
+            itemIds[i] = 1 + random.nextInt(BenchmarkDataset.ITEMS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int queued() throws InterruptedException {
+        List<OrderTicket> tickets = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            tickets.add(orderQueue.submit(memberIds[i], Collections.singletonMap(itemIds[i], 1)));
+        }
+        for (OrderTicket ticket : tickets) {
+            while (!ticket.isFinished()) {
+                Thread.sleep(1);
+            }
+        }
+        return tickets.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int direct() {
+        for (int i = 0; i < ORDERS; i++) {
+            orderFacade.order(memberIds[i], itemIds[i], 1);
+        }
+        return ORDERS;
+    }
+}
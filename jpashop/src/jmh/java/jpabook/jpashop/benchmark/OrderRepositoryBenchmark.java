@@ -0,0 +1,76 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderRepository.findAllByString - 주문 1만 / 100만 건에서 검색 (최대 1000건)
+ * 주문 수가 100배가 되어도 인덱스로 찾으면 시간이 거의 같아야 한다.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g") //주문 100만건 H2 메모리 DB
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private TransactionTemplate transactionTemplate;
+    private OrderSearch byStatus;
+    private OrderSearch byMemberName;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("orders" + orders);
+        int members = Math.max(orders / 10, 100);
+        BenchmarkDataset.seed(context.getBean(DataSource.class), members, orders);
+        orderRepository = context.getBean(OrderRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+
+        byStatus = new OrderSearch();
+        byStatus.setOrderStatus(OrderStatus.CANCEL);
+        //주문이 몰린 앞쪽 회원 10명 (회원000001x)
+        byMemberName = new OrderSearch();
+        byMemberName.setMemberName(BenchmarkDataset.memberName(10).substring(0, 8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findByStatus() {
+        return transactionTemplate.execute(status -> orderRepository.findAllByString(byStatus).size());
+    }
+
+    @Benchmark
+    public int findByMemberName() {
+        return transactionTemplate.execute(status -> orderRepository.findAllByString(byMemberName).size());
+    }
+}
@@ -0,0 +1,94 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.SalesPeriod;
+import jpabook.jpashop.repository.SalesRollupRow;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.SalesRollupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 오늘 매출 - 오늘 주문과 주문상품을 entity 로 모두 읽어서 합계(scan) vs 집계 테이블(rollup)
+ * 집계는 주문할 때 같은 트랜잭션에서 더해지므로 주문은 JDBC 로 넣지 않고 OrderService 로 orders 건
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 2) //spring + hibernate 는 JIT 가 자리잡는데 오래 걸린다
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SalesRollupBenchmark {
+
+    private static final int MEMBERS = 100;
+
+    @Param({"1000", "10000"})
+    int orders;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private SalesRollupService salesRollupService;
+    private LocalDateTime today;
+    private LocalDateTime tomorrow;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("sales" + orders);
+        BenchmarkDataset.seed(context.getBean(DataSource.class), MEMBERS, 0);
+        OrderService orderService = context.getBean(OrderService.class);
+        Random random = new Random(BenchmarkDataset.SEED);
+        for (int i = 0; i < orders; i++) {
+            orderService.order(1L + random.nextInt(MEMBERS), 1L + random.nextInt(BenchmarkDataset.ITEMS), 1 + random.nextInt(3));
+        }
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        salesRollupService = context.getBean(SalesRollupService.class);
+        today = LocalDate.now().atStartOfDay();
+        tomorrow = today.plusDays(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long scan() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return em.createQuery("select o from Order o where o.orderDate >= :from and o.orderDate < :to", Order.class)
+                    .setParameter("from", today)
+                    .setParameter("to", tomorrow)
+                    .getResultList().stream()
+                    .mapToLong(Order::getTotalPrice)
+                    .sum();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public long rollup() {
+        return salesRollupService.findTotals(SalesPeriod.DAY, today, tomorrow).stream()
+                .mapToLong(SalesRollupRow::getRevenue)
+                .sum();
+    }
+}
@@ -0,0 +1,11 @@
+-- BulkInsertBenchmark 의 allocation_size=1 비교용 - insert 마다 시퀀스를 호출하도록 모든 시퀀스 increment 를 1 로
+-- (spring.flyway.locations 에 이 위치를 더했을 때만 실행)
+
+alter sequence category_seq increment by 1;
+alter sequence delivery_seq increment by 1;
+alter sequence item_seq increment by 1;
+alter sequence member_seq increment by 1;
+alter sequence order_seq increment by 1;
+alter sequence order_item_seq increment by 1;
+alter sequence stock_delta_seq increment by 1;
+alter sequence order_event_seq increment by 1;
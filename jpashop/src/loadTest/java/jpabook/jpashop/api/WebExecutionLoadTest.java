@@ -0,0 +1,160 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.WebExecutionConfig;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.h2.tools.Server;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 요청 처리 모드별 부하 테스트 - H2 TCP 서버에 붙은 서버를 모드마다 새로 띄우고 동시 요청 CLIENTS 개로 회원 목록 조회
+ * platform(스레드 = 커넥션 풀 크기) / platform(스레드 200) / virtual (JDK 21 이상일 때만)
+ * 모드마다 서버를 새로 띄워서 1분 가까이 걸리므로 단위 테스트와 따로 ./gradlew loadTest
+ */
+public class WebExecutionLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WebExecutionLoadTest.class);
+
+    private static final int POOL_SIZE = 10;
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS = 4000;
+
+    private static Server h2;
+    private static int h2Port;
+
+    @BeforeClass
+    public static void startH2() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            h2Port = socket.getLocalPort();
+        }
+        h2 = Server.createTcpServer("-tcpPort", String.valueOf(h2Port), "-ifNotExists").start();
+    }
+
+    @AfterClass
+    public static void stopH2() {
+        h2.stop();
+    }
+
+    @Test
+    public void 실행모드별_처리량_p99() throws Exception {
+        Result pooled = run("platform", POOL_SIZE);
+        Result platform = run("platform", 200);
+        Result virtual = run("virtual", 200);
+
+        log.info("web execution - {} clients, {} requests, pool {}\n  {}\n  {}\n  {}",
+                CLIENTS, REQUESTS, POOL_SIZE, pooled, platform, virtual);
+        for (Result result : Arrays.asList(pooled, platform, virtual)) {
+            assertEquals(result.name + " 모든 요청 성공", REQUESTS, result.ok);
+        }
+    }
+
+    private Result run(String mode, int tomcatThreads) throws Exception {
+        String name = mode + tomcatThreads;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(JpashopApplication.class)
+                .run("--server.port=0",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:tcp://localhost:" + h2Port + "/mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--server.tomcat.threads.max=" + tomcatThreads,
+                        "--jpashop.web.execution-mode=" + mode,
+                        "--jpashop.item.search.index-dir=", //상품 검색 색인은 메모리에
+                        "--jpashop.outbox.relay.enabled=false",
+                        //context 를 닫으면 공유하는 JCache CacheManager 도 닫혀서 다른 테스트가 깨지므로 2차 캐시 없이
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--logging.level.org.hibernate.SQL=info", //SQL 로그가 측정을 덮지 않도록
+                        "--logging.level.org.hibernate.type=info",
+                        "--logging.level.p6spy=warn")) {
+            MemberService memberService = context.getBean(MemberService.class);
+            for (int i = 0; i < 500; i++) {
+                Member member = new Member();
+                member.setName("부하회원" + i);
+                member.setAddress(new Address("서울", "강가" + i, "123-123"));
+                memberService.join(member);
+            }
+            String port = context.getEnvironment().getProperty("local.server.port");
+            WebExecutionConfig.ExecutionMode actual = context.getBean(WebExecutionConfig.class).getMode();
+            Result result = load("http://localhost:" + port + "/api/v3/members?size=20&cursor=");
+            result.name = name + " (" + actual + ")";
+            return result;
+        }
+    }
+
+    private Result load(String url) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger ok = new AtomicInteger();
+
+        //워밍업
+        for (int i = 0; i < 200; i++) {
+            httpClient.send(HttpRequest.newBuilder(URI.create(url + i)).build(), HttpResponse.BodyHandlers.discarding());
+        }
+
+        long start = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < REQUESTS) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(url + i)).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        //실패는 ok 에서 빠진다
+                    }
+                    latencies[i] = System.nanoTime() - requestStart;
+                }
+            });
+        }
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        Result result = new Result();
+        result.ok = ok.get();
+        result.throughput = REQUESTS * 1_000_000_000L / elapsed;
+        result.p50Millis = latencies[REQUESTS / 2] / 1_000_000.0;
+        result.p99Millis = latencies[REQUESTS * 99 / 100] / 1_000_000.0;
+        return result;
+    }
+
+    static class Result {
+        String name;
+        int ok;
+        long throughput;
+        double p50Millis;
+        double p99Millis;
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %6d req/s, p50 %6.1f ms, p99 %6.1f ms, ok %d", name, throughput, p50Millis, p99Millis, ok);
+        }
+    }
+}
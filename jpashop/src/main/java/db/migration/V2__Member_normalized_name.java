@@ -0,0 +1,46 @@
+package db.migration;
+
+import jpabook.jpashop.domain.Member;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * 회원 이름 검색용 정규화 이름 (Member.normalizedName) + 앞부분 일치(like 'prefix%') 인덱스
+ * 기존 회원도 NFKC 까지 가입할 때와 똑같이 정규화해야 하므로 SQL 대신 Member.normalizeName 으로 채운다.
+ */
+public class V2__Member_normalized_name extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table member add column normalized_name varchar(255)");
+        }
+
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery("select member_id, name from member");
+             PreparedStatement update = connection.prepareStatement("update member set normalized_name = ? where member_id = ?")) {
+            int count = 0;
+            while (resultSet.next()) {
+                update.setString(1, Member.normalizeName(resultSet.getString(2)));
+                update.setLong(2, resultSet.getLong(1));
+                update.addBatch();
+                if (++count % BATCH_SIZE == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index idx_member_normalized_name on member (normalized_name)");
+        }
+    }
+}
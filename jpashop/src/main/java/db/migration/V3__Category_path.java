@@ -0,0 +1,58 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 카테고리 materialized path (Category.path) 추가
+ * 기존 카테고리의 path 는 깊이를 알 수 없어서 SQL 대신 부모 -> 자식 순서로 계산해서 채운다.
+ */
+public class V3__Category_path extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table category add column path varchar(1000)");
+        }
+
+        Map<Long, Long> parents = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select category_id, parent_id from category")) {
+            while (resultSet.next()) {
+                long parentId = resultSet.getLong(2);
+                parents.put(resultSet.getLong(1), resultSet.wasNull() ? null : parentId);
+            }
+        }
+        Map<Long, String> paths = new HashMap<>();
+        try (PreparedStatement update = connection.prepareStatement("update category set path = ? where category_id = ?")) {
+            for (Long id : parents.keySet()) {
+                update.setString(1, path(id, parents, paths));
+                update.setLong(2, id);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index idx_category_path on category (path)");
+        }
+    }
+
+    private static String path(Long id, Map<Long, Long> parents, Map<Long, String> paths) {
+        String path = paths.get(id);
+        if (path == null) {
+            Long parentId = parents.get(id);
+            path = (parentId != null ? path(parentId, parents, paths) : "") + id + "/";
+            paths.put(id, path);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,91 @@
+package jpabook.jpashop;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 지표 (/actuator/prometheus)
+ * - @Timed 가 붙은 서비스 메서드 시간 (jpashop.order, jpashop.item, jpashop.member)
+ * - 요청별 SQL 수 / 시간 (jpashop.http.sql.statements, jpashop.http.sql.time - uri 패턴별)
+ * - @QueryBudget 을 넘은 호출 수 (jpashop.sql.budget.exceeded - QueryBudgetGuard)
+ * - SQL 전체 / slow query (SqlStatementMetrics), hibernate 통계, 커넥션 풀, http 요청은 spring boot 기본 지표
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlRequestMetricsFilter> sqlRequestMetricsFilter(MeterRegistry meterRegistry,
+                                                                                   QueryBudgetGuard queryBudgetGuard) {
+        FilterRegistrationBean<SqlRequestMetricsFilter> registration =
+                new FilterRegistrationBean<>(new SqlRequestMetricsFilter(meterRegistry, queryBudgetGuard));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * 요청 하나가 실행한 SQL 수와 시간 - 요청 스레드에서 실행된 SQL 만 (async worker 스레드는 제외)
+     * 컨트롤러 메서드에 @QueryBudget 이 있으면 요청이 정상으로 끝난 뒤 예산 검사 (화면 렌더링까지 세야 하므로 응답을 보낸 뒤 - 로그만)
+     */
+    static class SqlRequestMetricsFilter extends OncePerRequestFilter {
+
+        private final MeterRegistry meterRegistry;
+        private final QueryBudgetGuard queryBudgetGuard;
+
+        SqlRequestMetricsFilter(MeterRegistry meterRegistry, QueryBudgetGuard queryBudgetGuard) {
+            this.meterRegistry = meterRegistry;
+            this.queryBudgetGuard = queryBudgetGuard;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            SqlStatementMetrics.Usage usage = SqlStatementMetrics.begin();
+            String uri;
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                SqlStatementMetrics.end();
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                uri = pattern != null ? pattern.toString() : "UNKNOWN"; //uri 그대로 쓰면 태그가 끝없이 늘어남
+                DistributionSummary.builder("jpashop.http.sql.statements")
+                        .description("요청당 SQL 수")
+                        .tags("method", request.getMethod(), "uri", uri)
+                        .register(meterRegistry)
+                        .record(usage.getStatements());
+                Timer.builder("jpashop.http.sql.time")
+                        .description("요청당 SQL 실행 시간 합계")
+                        .tags("method", request.getMethod(), "uri", uri)
+                        .register(meterRegistry)
+                        .record(usage.getNanos(), TimeUnit.NANOSECONDS);
+            }
+            Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof HandlerMethod) {
+                QueryBudget budget = ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class);
+                if (budget != null) {
+                    queryBudgetGuard.afterResponse(request.getMethod() + " " + uri, budget.value(), usage.getStatements());
+                }
+            }
+        }
+    }
+}
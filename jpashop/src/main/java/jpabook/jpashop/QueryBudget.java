@@ -0,0 +1,22 @@
+package jpabook.jpashop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메서드 한번 호출에 실행해도 되는 SQL 수 (N+1 방지)
+ * 서비스 메서드 - 호출부터 리턴까지 (트랜잭션 commit 의 flush 포함, QueryBudgetAspect)
+ * 컨트롤러 메서드 - 요청 전체 (open-in-view 로 화면/JSON 을 만들면서 실행된 지연 로딩 포함, SqlRequestMetricsFilter)
+ * 넘으면 jpashop.sql.query-budget.mode 에 따라 로그(log) 또는 예외(fail)
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /** 최대 SQL 수 (batch 실행은 1) */
+    int value();
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+
+/**
+ * 서비스 메서드의 @QueryBudget 검사
+ * 트랜잭션보다 바깥에서 세야 commit 할 때 flush 되는 insert/update 까지 들어가므로 가장 먼저 실행
+ * 컨트롤러는 여기서 세지 않고 요청 단위로 (SqlRequestMetricsFilter - 화면 렌더링 중 지연 로딩까지)
+ * 호출한 쪽 트랜잭션에 쌓인 insert/update 는 먼저 flush - 메서드 안에서 auto flush 되면 이 메서드의 SQL 로 세어지므로
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetAspect {
+
+    private final QueryBudgetGuard queryBudgetGuard;
+    private final EntityManager em;
+
+    public QueryBudgetAspect(QueryBudgetGuard queryBudgetGuard, EntityManager em) {
+        this.queryBudgetGuard = queryBudgetGuard;
+        this.em = em;
+    }
+
+    @Around("@annotation(jpabook.jpashop.QueryBudget)"
+            + " && !@within(org.springframework.stereotype.Controller)"
+            + " && !@within(org.springframework.web.bind.annotation.RestController)")
+    public Object check(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!queryBudgetGuard.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(method, QueryBudget.class);
+//        요청 / 바깥 메서드에서 이미 세고 있으면 그 사이 늘어난 수만, 아니면 여기서 새로 센다.
+        SqlStatementMetrics.Usage usage = SqlStatementMetrics.current();
+        boolean owner = usage == null;
+        if (owner) {
+            usage = SqlStatementMetrics.begin();
+        }
+        flushCaller();
+        int before = usage.getStatements();
+        try {
+            Object result = joinPoint.proceed();
+            queryBudgetGuard.check(joinPoint.getSignature().toShortString(), budget.value(),
+                    usage.getStatements() - before);
+            return result;
+        } finally {
+            if (owner) {
+                SqlStatementMetrics.end();
+            }
+        }
+    }
+
+    private void flushCaller() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && em.isJoinedToTransaction()) {
+            em.flush();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package jpabook.jpashop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.exception.QueryBudgetExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * @QueryBudget 검사 - 예산을 넘은 호출은 jpashop.sql.budget.exceeded 로 세고 mode 에 따라 처리
+ * off  - 검사하지 않음
+ * log  - 경고 로그 (운영 기본값)
+ * fail - QueryBudgetExceededException (테스트에서 N+1 을 바로 실패로)
+ * fail 은 서비스 메서드(QueryBudgetAspect)에만 - 컨트롤러 예산은 응답을 보낸 뒤에 검사하므로 fail 이어도 로그만 (afterResponse)
+ */
+@Slf4j
+@Component
+public class QueryBudgetGuard {
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    private final Mode mode;
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetGuard(@Value("${jpashop.sql.query-budget.mode:log}") Mode mode, MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * target 이 실행한 SQL 수가 예산을 넘었는지 확인
+     * target 은 지표 태그로 쓰므로 메서드 이름이나 uri 패턴처럼 개수가 정해진 값만
+     */
+    public void check(String target, int budget, int statements) {
+        String message = exceeded(target, budget, statements);
+        if (message == null) {
+            return;
+        }
+        if (mode == Mode.FAIL) {
+            throw new QueryBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    /** 응답을 이미 보낸 뒤의 검사 - 예외를 던져도 응답을 바꿀 수 없으므로 mode 가 fail 이어도 로그만 */
+    public void afterResponse(String target, int budget, int statements) {
+        String message = exceeded(target, budget, statements);
+        if (message != null) {
+            log.warn(message);
+        }
+    }
+
+    /** 예산을 넘었으면 세고 메시지, 아니면 null */
+    private String exceeded(String target, int budget, int statements) {
+        if (mode == Mode.OFF || statements <= budget) {
+            return null;
+        }
+        Counter.builder("jpashop.sql.budget.exceeded")
+                .description("SQL 수가 @QueryBudget 을 넘은 호출 수")
+                .tag("target", target)
+                .register(meterRegistry)
+                .increment();
+        return String.format("%s 에서 SQL %d 개 실행 (예산 %d 개) - N+1 확인", target, statements, budget);
+    }
+}
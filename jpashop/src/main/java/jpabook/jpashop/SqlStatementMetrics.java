@@ -0,0 +1,94 @@
+package jpabook.jpashop;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 실행 집계 (p6spy listener - 모든 statement / batch 실행 후 호출)
+ * jpashop.sql.statement - 전체 SQL 실행 시간
+ * jpashop.sql.slow      - slow-threshold 보다 오래 걸린 SQL 수, 그 중 slow-sample-rate 비율만 SQL(파라미터 포함)을 로그로
+ * 요청 단위 집계는 begin() ~ end() 사이에 같은 스레드에서 실행된 SQL 수와 시간 (SqlRequestMetricsFilter, QueryBudgetAspect)
+ */
+@Slf4j
+@Component
+public class SqlStatementMetrics extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<Usage> CURRENT = new ThreadLocal<>();
+
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+    private final Timer statementTimer;
+    private final Counter slowCounter;
+
+    public SqlStatementMetrics(@Value("${jpashop.sql.slow-threshold:200}") long slowThresholdMillis,
+                               @Value("${jpashop.sql.slow-sample-rate:1.0}") double slowSampleRate,
+                               MeterRegistry meterRegistry) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowSampleRate = slowSampleRate;
+        this.statementTimer = Timer.builder("jpashop.sql.statement")
+                .description("SQL 실행 시간")
+                .register(meterRegistry);
+        this.slowCounter = Counter.builder("jpashop.sql.slow")
+                .description("slow-threshold 보다 오래 걸린 SQL 수")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        statementTimer.record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+        Usage usage = CURRENT.get();
+        if (usage != null) {
+            usage.statements++;
+            usage.nanos += timeElapsedNanos;
+        }
+        if (timeElapsedNanos >= slowThresholdNanos) {
+            slowCounter.increment();
+            if (slowSampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                log.warn("slow query {} ms: {}", TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                        statementInformation.getSqlWithValues());
+            }
+        }
+    }
+
+    /** 현재 스레드에서 SQL 집계 시작 */
+    public static Usage begin() {
+        Usage usage = new Usage();
+        CURRENT.set(usage);
+        return usage;
+    }
+
+    /** 현재 스레드 집계를 끝내고 돌려준다. (begin 이 없었으면 null) */
+    public static Usage end() {
+        Usage usage = CURRENT.get();
+        CURRENT.remove();
+        return usage;
+    }
+
+    /** 현재 스레드에서 지금까지 실행한 SQL (begin 이 없었으면 null) */
+    public static Usage current() {
+        return CURRENT.get();
+    }
+
+    public static class Usage {
+        private int statements;
+        private long nanos;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
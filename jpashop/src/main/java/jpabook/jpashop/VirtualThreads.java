@@ -0,0 +1,23 @@
+package jpabook.jpashop;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * virtual thread executor
+ * Java 11 로 컴파일하므로 Executors.newVirtualThreadPerTaskExecutor() 는 JDK 21 이상에서 실행될 때만 reflection 으로 찾는다.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /** 실행 중인 JDK 가 지원하지 않으면 null */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package jpabook.jpashop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 처리 스레드 설정 (jpashop.web.execution-mode)
+ * platform - tomcat 스레드 풀 (server.tomcat.threads.max), 요청마다 스레드 하나가 JDBC 응답을 기다린다.
+ * virtual  - 요청마다 virtual thread (JDK 21 이상), JDBC 를 기다리는 동안 OS 스레드를 잡지 않는다.
+ *            JDK 가 지원하지 않으면 경고를 남기고 platform 으로 동작 (Java 11 로 빌드해서 JDK 21 이상으로 실행)
+ *            스레드 수 제한이 없어지므로 동시 요청은 max-concurrent-requests 로 제한 (넘으면 503)
+ * Callable / DeferredResult 를 돌려주는 컨트롤러는 모드와 같은 전용 executor 에서 실행
+ * 이 executor 는 bean 으로 등록하지 않는다. (Executor bean 이 있으면 Boot 의 applicationTaskExecutor 가 만들어지지 않음)
+ * 실제 동시 DB 작업 수는 어느 모드든 connection pool(spring.datasource.hikari.maximum-pool-size) 크기
+ */
+@Slf4j
+@Configuration
+public class WebExecutionConfig implements WebMvcConfigurer {
+
+    public enum ExecutionMode {
+        PLATFORM, VIRTUAL
+    }
+
+    private final ExecutionMode mode;
+    private final ExecutorService virtualThreadExecutor;
+    private final AsyncTaskExecutor mvcAsyncExecutor;
+    private final long asyncTimeout;
+
+    public WebExecutionConfig(@Value("${jpashop.web.execution-mode:platform}") ExecutionMode mode,
+                              @Value("${jpashop.web.async.threads:16}") int asyncThreads,
+                              @Value("${jpashop.web.async.timeout:30000}") long asyncTimeout) {
+        this.virtualThreadExecutor = mode == ExecutionMode.VIRTUAL ? VirtualThreads.newExecutor() : null;
+        if (mode == ExecutionMode.VIRTUAL && virtualThreadExecutor == null) {
+            log.warn("virtual threads are not available on Java {}, falling back to platform threads",
+                    System.getProperty("java.version"));
+        }
+        this.mode = virtualThreadExecutor != null ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+        this.mvcAsyncExecutor = createMvcAsyncExecutor(asyncThreads);
+        this.asyncTimeout = asyncTimeout;
+        log.info("web execution mode: {}", this.mode);
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (virtualThreadExecutor != null) {
+                protocolHandler.setExecutor(virtualThreadExecutor);
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${jpashop.web.max-concurrent-requests:400}") int maxConcurrentRequests,
+            @Value("${jpashop.web.acquire-timeout:1000}") long acquireTimeout) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeout));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        //platform 모드는 tomcat 스레드 수가 제한이므로 필터가 필요 없음
+        registration.setEnabled(mode == ExecutionMode.VIRTUAL);
+        return registration;
+    }
+
+    private AsyncTaskExecutor createMvcAsyncExecutor(int asyncThreads) {
+        if (virtualThreadExecutor != null) {
+            return new TaskExecutorAdapter(virtualThreadExecutor);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setQueueCapacity(asyncThreads * 64);
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+        configurer.setDefaultTimeout(asyncTimeout);
+    }
+
+    /** tomcat 은 밖에서 넣어준 executor 를 닫지 않으므로 (서버가 멈춘 뒤 호출됨), async executor 도 bean 이 아니므로 직접 */
+    @PreDestroy
+    public void shutdown() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+        if (mvcAsyncExecutor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) mvcAsyncExecutor).shutdown();
+        }
+    }
+
+    /**
+     * 동시에 처리하는 요청 수 제한 - 자리가 없으면 acquire-timeout 만큼 기다리고 503
+     */
+    static class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+        private final Semaphore permits;
+        private final long acquireTimeout;
+
+        ConcurrencyLimitFilter(int maxConcurrentRequests, long acquireTimeout) {
+            this.permits = new Semaphore(maxConcurrentRequests);
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return;
+            }
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
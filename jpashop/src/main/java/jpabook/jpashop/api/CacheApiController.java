@@ -0,0 +1,64 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheApiController {
+
+    private final EntityManagerFactory emf;
+
+    /**
+     * 2차 캐시 영역별 hit/miss (hibernate.generate_statistics=true 일 때만 집계)
+     */
+    @GetMapping("/api/cache/stats")
+    public CacheStats cacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<RegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(name -> new RegionStats(name, statistics.getCacheRegionStatistics(name)))
+                .collect(Collectors.toList());
+        return new CacheStats(statistics.isStatisticsEnabled(),
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                regions);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheStats {
+        private boolean enabled;
+        private long hitCount;
+        private long missCount;
+        private long queryHitCount;
+        private long queryMissCount;
+        private List<RegionStats> regions;
+    }
+
+    @Data
+    static class RegionStats {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+
+        public RegionStats(String region, CacheRegionStatistics statistics) {
+            this.region = region;
+            hitCount = statistics.getHitCount();
+            missCount = statistics.getMissCount();
+            putCount = statistics.getPutCount();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.CategoryHierarchy;
+import jpabook.jpashop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final CategoryService categoryService;
+    private final CategoryHierarchy categoryHierarchy;
+
+    /**
+     * 전체 카테고리 트리 - 메모리 캐시에서 (쿼리 없음)
+     */
+    @GetMapping("/api/categories")
+    public List<CategoryDto> categories() {
+        return categoryHierarchy.roots().stream()
+                .map(CategoryDto::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 카테고리와 하위 카테고리 전체의 상품 - 상품 id keyset 페이징 (nextCursor 가 null 이면 마지막 페이지)
+     */
+    @GetMapping("/api/categories/{categoryId}/items")
+    public ItemPage categoryItems(@PathVariable("categoryId") Long categoryId,
+                                  @RequestParam(value = "cursor", required = false) Long cursor,
+                                  @RequestParam(value = "size", defaultValue = "100") int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<Item> items;
+        try {
+            items = categoryService.findItems(categoryId, cursor, pageSize + 1);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+        boolean hasNext = items.size() > pageSize;
+        if (hasNext) {
+            items = items.subList(0, pageSize);
+        }
+        List<ItemApiController.ItemDto> data = items.stream()
+                .map(ItemApiController.ItemDto::new)
+                .collect(Collectors.toList());
+        return new ItemPage(data.size(), data, hasNext ? items.get(items.size() - 1).getId() : null);
+    }
+
+    @Data
+    static class CategoryDto {
+        private Long id;
+        private String name;
+        private List<CategoryDto> children;
+
+        public CategoryDto(CategoryHierarchy.Node node) {
+            id = node.getId();
+            name = node.getName();
+            children = node.getChildren().stream()
+                    .map(CategoryDto::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ItemPage {
+        private int count;
+        private List<ItemApiController.ItemDto> data;
+        private Long nextCursor;
+    }
+}
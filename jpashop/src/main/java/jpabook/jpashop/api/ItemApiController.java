@@ -0,0 +1,125 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.service.ItemImportResult;
+import jpabook.jpashop.service.ItemImportService;
+import jpabook.jpashop.service.ItemImportService.Format;
+import jpabook.jpashop.service.ItemSearchResult;
+import jpabook.jpashop.service.ItemService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ItemImportService itemImportService;
+    private final ItemService itemService;
+
+    /**
+     * 상품 검색 - 상품명, 저자/ISBN, 아티스트, 감독/배우 전문 검색, 관련도 순 (page 는 0 부터)
+     */
+    @GetMapping("/api/items/search")
+    public ItemSearchPage searchItems(@RequestParam("q") String q,
+                                      @RequestParam(value = "page", defaultValue = "0") int page,
+                                      @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (!StringUtils.hasText(q)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "검색어가 없습니다.");
+        }
+        ItemSearchResult result = itemService.searchItems(q, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        List<ItemDto> items = result.getItems().stream()
+                .map(ItemDto::new)
+                .collect(Collectors.toList());
+        return new ItemSearchPage(result.getTotalHits(), result.getPage(), result.getSize(), items);
+    }
+
+    /**
+     * 상품 일괄 등록 - 파일 업로드 (multipart, 확장자 .csv / .json)
+     */
+    @PostMapping(value = "/api/items/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ItemImportResult importItems(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return importItems(in, Format.of(file.getOriginalFilename(), file.getContentType()));
+        }
+    }
+
+    /**
+     * 상품 일괄 등록 - 요청 body 를 그대로 읽으면서 저장 (text/csv, application/json)
+     * 업로드 파일을 임시 파일로 받지 않으므로 아주 큰 파일은 이쪽을 사용
+     */
+    @PostMapping(value = "/api/items/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ItemImportResult importItems(HttpServletRequest request) throws IOException {
+        return importItems(request.getInputStream(), Format.of(null, request.getContentType()));
+    }
+
+    private ItemImportResult importItems(InputStream in, Format format) throws IOException {
+        try {
+            return itemImportService.importItems(in, format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ItemSearchPage {
+        private long total;
+        private int page;
+        private int size;
+        private List<ItemDto> data;
+    }
+
+    @Data
+    static class ItemDto {
+        private Long id;
+        private String type;
+        private String name;
+        private int price;
+        private int stockQuantity;
+        private String author;
+        private String isbn;
+        private String artist;
+        private String director;
+        private String actor;
+
+        public ItemDto(Item item) {
+            id = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+            stockQuantity = item.getStockQuantity();
+            if (item instanceof Book) {
+                type = "BOOK";
+                author = ((Book) item).getAuthor();
+                isbn = ((Book) item).getIsbn();
+            } else if (item instanceof Album) {
+                type = "ALBUM";
+                artist = ((Album) item).getArtist();
+            } else if (item instanceof Movie) {
+                type = "MOVIE";
+                director = ((Movie) item).getDirector();
+                actor = ((Movie) item).getActor();
+            }
+        }
+    }
+}
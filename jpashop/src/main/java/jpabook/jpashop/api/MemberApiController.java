@@ -1,12 +1,16 @@
 package jpabook.jpashop.api;
 
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberQueryDto;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -17,6 +21,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final MemberService memberService;
 
     @GetMapping("/api/v1/members")
@@ -37,6 +43,28 @@ public class MemberApiController {
         return new Result(collect.size(), collect);
     }
 
+    /**
+     * 회원 목록 - member_id keyset 페이징 + DTO 직접 조회
+     * v2 는 전체 회원 entity 를 매번 다 읽어오지만 v3 는 한 페이지 분량의 컬럼만 읽는다.
+     * 응답의 nextCursor 를 다음 요청의 cursor 로 넘기면 다음 페이지, null 이면 마지막 페이지
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/v3/members")
+    public MemberPage membersV3(@RequestParam(value = "cursor", required = false) Long cursor,
+                                @RequestParam(value = "size", defaultValue = "100") int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+//        한건 더 조회해서 다음 페이지가 있는지 확인
+        List<MemberQueryDto> members = memberService.findMembers(cursor, pageSize + 1);
+        boolean hasNext = members.size() > pageSize;
+        if (hasNext) {
+            members = members.subList(0, pageSize);
+        }
+        Long nextCursor = hasNext ? members.get(members.size() - 1).getId() : null;
+
+        return new MemberPage(members.size(), members, nextCursor);
+    }
+
     /**
      * Data로 감싸주면 유연성 증가
      */
@@ -47,6 +75,14 @@ public class MemberApiController {
         private T data;
     }
 
+    @Data
+    @AllArgsConstructor
+    public static class MemberPage {
+        private int count;
+        private List<MemberQueryDto> data;
+        private Long nextCursor;
+    }
+
     /**
      * 원하는 값들 조절 가능
      */
@@ -85,7 +121,13 @@ public class MemberApiController {
             @PathVariable("id") Long id,
             @RequestBody UpdateMemberRequest request) {
 
-        memberService.update(id, request.getName());
+        try {
+            memberService.update(id, request.getName());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
         Member findMember = memberService.findOne(id);
         return new UpdateMemberResponse(findMember.getId(), findMember.getName());
     }
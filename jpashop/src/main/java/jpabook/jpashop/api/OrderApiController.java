@@ -0,0 +1,228 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.QueryBudget;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import jpabook.jpashop.service.OrderFacade;
+import jpabook.jpashop.service.OrderQueue;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderTicket;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class OrderApiController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final OrderService orderService;
+    private final OrderFacade orderFacade;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<OrderQueue> orderQueue;
+
+    /**
+     * 여러 상품 주문 - 주문 1건에 주문상품 여러개
+     * 같은 상품이 여러번 오면 수량을 합친다. 없는 회원/상품이면 400
+     */
+    @PostMapping("/api/orders")
+    public CreateOrderResponse saveOrder(@RequestBody @Valid CreateOrderRequest request) {
+        try {
+            return new CreateOrderResponse(orderFacade.order(request.getMemberId(), request.itemCounts()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 비동기 주문 - 큐에 넣고 접수표 id 를 바로 돌려준다. 결과는 /api/orders/tickets/{ticketId} 로 확인
+     * 큐가 차 있으면 503 (jpashop.order.async.enabled=false 면 404)
+     */
+    @PostMapping("/api/orders/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public OrderTicketDto saveOrderAsync(@RequestBody @Valid CreateOrderRequest request) {
+        try {
+            return new OrderTicketDto(orderQueue().submit(request.getMemberId(), request.itemCounts()));
+        } catch (OrderQueueFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/api/orders/tickets/{ticketId}")
+    public OrderTicketDto orderTicket(@PathVariable("ticketId") String ticketId) {
+        OrderTicket ticket = orderQueue().findTicket(ticketId);
+        if (ticket == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "접수표가 없거나 만료되었습니다.");
+        }
+        return new OrderTicketDto(ticket);
+    }
+
+    private OrderQueue orderQueue() {
+        OrderQueue queue = orderQueue.getIfAvailable();
+        if (queue == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "비동기 주문을 사용하지 않습니다.");
+        }
+        return queue;
+    }
+
+    /**
+     * 주문 목록 - keyset 페이징
+     * 응답의 nextCursor 를 다음 요청의 cursor 로 넘기면 다음 페이지, null 이면 마지막 페이지
+     */
+    @QueryBudget(4)
+    @GetMapping("/api/orders")
+    public OrderPage orders(@ModelAttribute OrderSearch orderSearch,
+                            @RequestParam(value = "cursor", required = false) Long cursor,
+                            @RequestParam(value = "size", defaultValue = "20") int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+//        한건 더 조회해서 다음 페이지가 있는지 확인
+        List<Order> orders = orderService.findOrders(orderSearch, cursor, pageSize + 1);
+        boolean hasNext = orders.size() > pageSize;
+        if (hasNext) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        List<OrderDto> collect = orders.stream()
+                .map(OrderDto::new)
+                .collect(Collectors.toList());
+        Long nextCursor = hasNext ? collect.get(collect.size() - 1).getOrderId() : null;
+
+        return new OrderPage(collect.size(), collect, nextCursor);
+    }
+
+    /**
+     * 주문 내보내기 - 검색 조건에 맞는 주문상품 전체를 CSV(format=csv) 또는 JSON 배열로 스트리밍
+     * 건수 제한 없음, DB cursor 로 읽으면서 바로 응답에 쓰므로 건수와 상관없이 메모리 일정
+     */
+    @GetMapping("/api/orders/export")
+    public void exportOrders(@ModelAttribute OrderSearch orderSearch,
+                             @RequestParam(value = "format", defaultValue = "json") String format,
+                             HttpServletResponse response) throws IOException {
+        OrderExportWriter writer;
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=\"orders.csv\"");
+            writer = OrderExportWriter.csv(response.getOutputStream());
+        } else {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            writer = OrderExportWriter.json(response.getOutputStream(), objectMapper);
+        }
+        try (writer) {
+            orderService.exportOrders(orderSearch, writer);
+        }
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        @Valid
+        private List<CreateOrderItemRequest> orderItems;
+
+        //같은 상품은 수량을 합친다
+        Map<Long, Integer> itemCounts() {
+            return orderItems.stream()
+                    .collect(Collectors.toMap(CreateOrderItemRequest::getItemId,
+                            CreateOrderItemRequest::getCount, Integer::sum));
+        }
+    }
+
+    @Data
+    static class CreateOrderItemRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long id;
+    }
+
+    @Data
+    static class OrderTicketDto {
+        private String ticketId;
+        private OrderTicket.Status status;
+        private Long orderId;
+        private String message;
+        private LocalDateTime createdAt;
+        private LocalDateTime finishedAt;
+
+        public OrderTicketDto(OrderTicket ticket) {
+            ticketId = ticket.getId();
+            status = ticket.getStatus();
+            orderId = ticket.getOrderId();
+            message = ticket.getMessage();
+            createdAt = ticket.getCreatedAt();
+            finishedAt = ticket.getFinishedAt();
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderPage {
+        private int count;
+        private List<OrderDto> data;
+        private Long nextCursor;
+    }
+
+    @Data
+    static class OrderDto {
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        private List<OrderItemDto> orderItems;
+
+        public OrderDto(Order order) {
+            orderId = order.getId();
+            name = order.getMember().getName();
+            orderDate = order.getOrderDate();
+            orderStatus = order.getStatus();
+            address = order.getDelivery().getAddress();
+            orderItems = order.getOrderItems().stream()
+                    .map(OrderItemDto::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    static class OrderItemDto {
+        private String itemName;
+        private int orderPrice;
+        private int count;
+
+        public OrderItemDto(OrderItem orderItem) {
+            itemName = orderItem.getItem().getName();
+            orderPrice = orderItem.getOrderPrice();
+            count = orderItem.getCount();
+        }
+    }
+}
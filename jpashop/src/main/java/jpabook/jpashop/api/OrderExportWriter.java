@@ -0,0 +1,116 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.repository.OrderExportRow;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * 주문 내보내기 출력 - 행을 받는 대로 응답 스트림에 바로 쓴다. (버퍼가 차면 chunk 로 전송)
+ */
+abstract class OrderExportWriter implements Consumer<OrderExportRow>, Closeable {
+
+    static OrderExportWriter csv(OutputStream out) throws IOException {
+        return new Csv(out);
+    }
+
+    static OrderExportWriter json(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return new Json(objectMapper.getFactory().createGenerator(out));
+    }
+
+    @Override
+    public void accept(OrderExportRow row) {
+        try {
+            write(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    abstract void write(OrderExportRow row) throws IOException;
+
+    private static class Csv extends OrderExportWriter {
+
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("orderId,orderDate,orderStatus,memberName,city,street,zipcode," +
+                    "deliveryStatus,itemId,itemName,orderPrice,count\n");
+        }
+
+        @Override
+        void write(OrderExportRow row) throws IOException {
+            writer.write(String.valueOf(row.getOrderId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getOrderDate()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getOrderStatus()));
+            writer.write(',');
+            writer.write(escape(row.getMemberName()));
+            writer.write(',');
+            writer.write(escape(row.getCity()));
+            writer.write(',');
+            writer.write(escape(row.getStreet()));
+            writer.write(',');
+            writer.write(escape(row.getZipcode()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getDeliveryStatus()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getItemId()));
+            writer.write(',');
+            writer.write(escape(row.getItemName()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getOrderPrice()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getCount()));
+            writer.write('\n');
+        }
+
+        //    쉼표, 따옴표, 줄바꿈이 있으면 큰따옴표로 감싸고 " 는 "" 로
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static class Json extends OrderExportWriter {
+
+        private final JsonGenerator generator;
+
+        Json(JsonGenerator generator) throws IOException {
+            this.generator = generator;
+            generator.writeStartArray();
+        }
+
+        @Override
+        void write(OrderExportRow row) throws IOException {
+            generator.writeObject(row);
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeEndArray();
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.SalesPeriod;
+import jpabook.jpashop.repository.SalesRollupRow;
+import jpabook.jpashop.service.SalesRollupService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 주문 집계 리포트 - 집계 테이블만 읽는다. (from ~ to 날짜 포함, 주문일 기준)
+ */
+@RestController
+@RequiredArgsConstructor
+public class SalesReportApiController {
+
+    private static final int MAX_TOP_ITEMS = 100;
+
+    private final SalesRollupService salesRollupService;
+
+    /** 시간/일별 주문 수, 수량, 매출, 취소 */
+    @GetMapping("/api/reports/sales")
+    public SalesReport sales(@RequestParam(value = "period", defaultValue = "DAY") SalesPeriod period,
+                             @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return new SalesReport(period, from, to,
+                salesRollupService.findTotals(period, from.atStartOfDay(), end(to)));
+    }
+
+    /** 기간 동안 순매출 상위 상품 */
+    @GetMapping("/api/reports/sales/items")
+    public SalesReport topItems(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return new SalesReport(SalesPeriod.DAY, from, to,
+                salesRollupService.findTopItems(SalesPeriod.DAY, from.atStartOfDay(), end(to),
+                        Math.min(Math.max(limit, 1), MAX_TOP_ITEMS)));
+    }
+
+    /** 상품 한개의 시간/일별 추이 */
+    @GetMapping("/api/reports/sales/items/{itemId}")
+    public SalesReport itemSales(@PathVariable("itemId") Long itemId,
+                                 @RequestParam(value = "period", defaultValue = "DAY") SalesPeriod period,
+                                 @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                 @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return new SalesReport(period, from, to,
+                salesRollupService.findItemSeries(itemId, period, from.atStartOfDay(), end(to)));
+    }
+
+    private static LocalDateTime end(LocalDate to) {
+        return to.plusDays(1).atStartOfDay();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class SalesReport {
+        private SalesPeriod period;
+        private LocalDate from;
+        private LocalDate to;
+        private List<SalesRollupRow> data;
+    }
+}
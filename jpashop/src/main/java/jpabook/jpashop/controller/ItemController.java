@@ -1,23 +1,39 @@
 package jpabook.jpashop.controller;
 
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemSort;
+import jpabook.jpashop.service.ItemImportService;
+import jpabook.jpashop.service.ItemImportService.Format;
+import jpabook.jpashop.service.ItemSearchResult;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.PageResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
 @Controller
 @RequiredArgsConstructor
 public class ItemController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PAGE = 100_000; //page * size 가 int 를 넘지 않도록 (더 뒤는 cursor API 로)
+
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
 
     @GetMapping("items/new")
     public String createForm(Model model) {
@@ -39,10 +55,45 @@ public class ItemController {
         return "redirect:/";
     }
 
+    @GetMapping("/items/import")
+    public String importForm() {
+        return "items/importItemForm";
+    }
+
+    @PostMapping("/items/import")
+    public String importItems(@RequestParam("file") MultipartFile file, Model model) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            Format format = Format.of(file.getOriginalFilename(), file.getContentType());
+            model.addAttribute("result", itemImportService.importItems(in, format));
+        }
+        return "items/importItemForm";
+    }
+
+    /**
+     * 상품 목록 - 페이지 단위 (page 는 0 부터), 검색어가 있으면 검색 색인에서 관련도 순
+     */
+    @QueryBudget(4)
     @GetMapping("/items")
-    public String list(Model model) {
-        List<Item> items = itemService.findItems();
+    public String list(@RequestParam(value = "q", required = false) String q,
+                       @RequestParam(value = "sort", defaultValue = "ID") ItemSort sort,
+                       @RequestParam(value = "page", defaultValue = "0") int page,
+                       @RequestParam(value = "size", defaultValue = "20") int size,
+                       Model model) {
+        if (page > MAX_PAGE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page 는 " + MAX_PAGE + " 까지입니다.");
+        }
+        page = Math.max(page, 0);
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PageResult<Item> items;
+        if (StringUtils.hasText(q)) {
+            ItemSearchResult result = itemService.searchItems(q, page, size);
+            items = new PageResult<>(result.getItems(), page, size, result.getTotalHits());
+        } else {
+            items = itemService.findItems(sort, page, size);
+        }
         model.addAttribute("items", items);
+        model.addAttribute("q", q);
+        model.addAttribute("sort", sort);
         return "items/itemList";
     }
 
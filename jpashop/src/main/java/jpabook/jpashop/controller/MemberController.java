@@ -1,8 +1,13 @@
 package jpabook.jpashop.controller;
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberQueryDto;
+import jpabook.jpashop.repository.MemberSort;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.PageResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -10,12 +15,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 import javax.validation.Valid;
-import java.util.List;
 
 @Controller
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PAGE = 100_000; //page * size 가 int 를 넘지 않도록 (더 뒤는 cursor API 로)
+
     private final MemberService memberService;
 
     @GetMapping(value = "/members/new")
@@ -33,14 +42,31 @@ public class MemberController {
         Member member = new Member();
         member.setName(form.getName());
         member.setAddress(address);
-        memberService.join(member);
+        try {
+            memberService.join(member);
+        } catch (IllegalStateException e) {
+            result.rejectValue("name", "duplicate", e.getMessage());
+            return "members/createMemberForm";
+        }
         return "redirect:/";
     }
 
+    /**
+     * 회원 목록 - 페이지 단위 (page 는 0 부터)
+     */
+    @QueryBudget(3)
     @GetMapping("/members")
-    public String list(Model model) {
-        List<Member> members = memberService.findMembers();
+    public String list(@RequestParam(value = "sort", defaultValue = "ID") MemberSort sort,
+                       @RequestParam(value = "page", defaultValue = "0") int page,
+                       @RequestParam(value = "size", defaultValue = "20") int size,
+                       Model model) {
+        if (page > MAX_PAGE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page 는 " + MAX_PAGE + " 까지입니다.");
+        }
+        PageResult<MemberQueryDto> members = memberService.findMembers(sort, Math.max(page, 0),
+                Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
         model.addAttribute("members", members);
+        model.addAttribute("sort", sort);
         return "members/memberList";
     }
 }
@@ -1,11 +1,13 @@
 package jpabook.jpashop.controller;
 
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderFacade;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -19,6 +21,7 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderFacade orderFacade;
     private final MemberService memberService;
     private final ItemService itemService;
 
@@ -38,10 +41,12 @@ public class OrderController {
     public String order(@RequestParam("memberId") Long memberId,
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
-       orderService.order(memberId, itemId, count);
+       orderFacade.order(memberId, itemId, count);
        return "redirect:/orders";
     }
 
+    //최대 1000건 + 화면에서 읽는 회원/주문상품/상품 (batch fetch 100건씩) - 주문마다 SQL 이 나가면 초과
+    @QueryBudget(25)
     @GetMapping(value = "/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch
                                     orderSearch, Model model) {
@@ -55,7 +60,7 @@ public class OrderController {
 
     @PostMapping(value = "/orders/{orderId}/cancel")
     public String cancelOrder(@PathVariable("orderId") Long orderId) {
-        orderService.cancelOrder(orderId);
+        orderFacade.cancelOrder(orderId);
         return "redirect:/orders";
     }
 
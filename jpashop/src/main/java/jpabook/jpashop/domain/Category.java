@@ -1,8 +1,11 @@
 package jpabook.jpashop.domain;
 
 import jpabook.jpashop.domain.item.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,18 +13,31 @@ import java.util.List;
 
 @Entity
 @Getter @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "idx_category_parent", columnList = "parent_id"),
+        @Index(name = "idx_category_path", columnList = "path")})
 public class Category {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "category_id")
     private Long id;
 
     private String name;
 
+    /**
+     * 루트부터 자신까지의 id 경로 ("1/5/23/") - 하위 카테고리 전체가 path like '1/5/%' 로 한번에 조회된다.
+     * id 가 있어야 만들 수 있으므로 저장(CategoryRepository.save) 후 updatePath() 로 채운다.
+     */
+    @Setter(AccessLevel.NONE)
+    private String path;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "item_id"))
+            inverseJoinColumns = @JoinColumn(name = "item_id"),
+            indexes = @Index(name = "idx_category_item_item", columnList = "item_id"))
     private List<Item> items = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,4 +52,12 @@ public class Category {
         this.child.add(child);
         child.setParent(this);
     }
+
+    /** 부모 경로 + 자기 id 로 path 를 다시 만들고 하위 카테고리도 모두 */
+    public void updatePath() {
+        this.path = (parent != null ? parent.getPath() : "") + id + "/";
+        for (Category category : child) {
+            category.updatePath();
+        }
+    }
 }
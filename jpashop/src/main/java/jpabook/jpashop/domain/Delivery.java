@@ -9,7 +9,7 @@ import javax.persistence.*;
 @Getter @Setter
 public class Delivery {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "delivery_id")
     private Long id;
 
@@ -1,27 +1,56 @@
 package jpabook.jpashop.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 @Entity
 @Getter
 @Setter
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name"),
+        indexes = @Index(name = "idx_member_normalized_name", columnList = "normalizedName"))
 public class Member {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "member_id")
     private Long id;
 
     @NotEmpty
     private String name;
 
+    /** 검색용 이름 - name 을 바꿀 때 같이 바뀐다. (normalizeName) */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String normalizedName;
+
     @Embedded
     private Address address;
 
     @OneToMany(mappedBy = "member")
     @JsonIgnore
     private List<Order> orders = new ArrayList<>();
-}
\ No newline at end of file
+
+    public void setName(String name) {
+        this.name = name;
+        this.normalizedName = normalizeName(name);
+    }
+
+    /**
+     * 이름 검색용 정규화 - NFKC(전각/반각 통일), 앞뒤 공백 제거, 연속 공백은 하나로, 소문자
+     * 검색어도 같은 방법으로 정규화해서 비교한다.
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return Normalizer.normalize(name, Normalizer.Form.NFKC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+}
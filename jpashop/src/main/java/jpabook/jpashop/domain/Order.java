@@ -11,12 +11,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = {
+        @Index(name = "idx_orders_status_id", columnList = "status, order_id"),
+        @Index(name = "idx_orders_member_date", columnList = "member_id, orderDate")})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name="order_id")
     private Long id;
 
@@ -71,9 +73,6 @@ public class Order {
             throw new IllegalStateException("이미 배송완료된 사움은 취소가 불가능합니다.");
         }
         this.setStatus(OrderStatus.CANCEL);
-        for(OrderItem orderItem: this.orderItems){
-            orderItem.cancel();
-        }
     }
 
     /*
@@ -0,0 +1,42 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 이벤트 outbox
+ * 주문/취소와 같은 트랜잭션에 저장되고, OrderEventRelay 가 외부(sink)로 보낸 뒤 삭제된다.
+ * 남아있는 이벤트 = 아직 보내지 않은 이벤트 (보낸 뒤 삭제 전에 죽으면 다시 보내므로 받는 쪽은 id 로 중복 제거)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderEvent {
+
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
+    @Column(name = "order_event_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private OrderEventType type;
+
+    private Long aggregateId; // ORDER_* 는 주문 id, STOCK_CHANGED 는 상품 id
+
+    @Lob
+    private String payload; // JSON, 주문상품 수만큼 길어지므로 clob
+
+    private LocalDateTime createdAt;
+
+    public static OrderEvent create(OrderEventType type, Long aggregateId, String payload) {
+        OrderEvent event = new OrderEvent();
+        event.type = type;
+        event.aggregateId = aggregateId;
+        event.payload = payload;
+        event.createdAt = LocalDateTime.now();
+        return event;
+    }
+}
@@ -0,0 +1,6 @@
+package jpabook.jpashop.domain;
+
+/** 주문 이벤트 종류 (aggregateId 가 주문 id 인지 상품 id 인지) */
+public enum OrderEventType {
+    ORDER_PLACED, ORDER_CANCELLED, STOCK_CHANGED
+}
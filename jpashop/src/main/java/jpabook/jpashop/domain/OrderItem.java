@@ -5,16 +5,18 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.mapping.Join;
 
 import javax.persistence.*;
 
 @Entity
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = {
+        @Index(name = "idx_order_item_order", columnList = "order_id, item_id, orderPrice"),
+        @Index(name = "idx_order_item_item", columnList = "item_id, order_id")})
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -36,17 +38,9 @@ public class OrderItem {
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-
-
-        item.removeStock(count);
         return orderItem;
     }
 
-//    주문상품취소
-    public void cancel() {
-        getItem().addStock(count);
-    }
-
 //    주문상품 총합
     public int getTotalPrice() {
         return getOrderPrice()*getCount();
@@ -0,0 +1,20 @@
+package jpabook.jpashop.domain;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/** 주문 집계 기간 */
+public enum SalesPeriod {
+    HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    SalesPeriod(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /** 집계 구간 시작 시각 (13:45 -> HOUR 13:00, DAY 00:00) */
+    public LocalDateTime truncate(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(unit);
+    }
+}
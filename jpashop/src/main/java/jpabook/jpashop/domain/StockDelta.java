@@ -0,0 +1,35 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 재고 변경 기록 (write-behind 용)
+ * 주문/취소와 같은 트랜잭션에 저장되고, item 테이블에 반영된 뒤 삭제된다.
+ * 남아있는 기록 = 아직 item.stock_quantity 에 반영되지 않은 주문분
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_stock_delta_item", columnList = "item_id"))
+public class StockDelta {
+
+    @Id @GeneratedValue(generator = PooledSequenceGenerator.NAME)
+    @Column(name = "stock_delta_id")
+    private Long id;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private int quantity; // 차감은 음수, 원복은 양수
+
+    public static StockDelta create(Long itemId, int quantity) {
+        StockDelta stockDelta = new StockDelta();
+        stockDelta.itemId = itemId;
+        stockDelta.quantity = quantity;
+        return stockDelta;
+    }
+}
@@ -1,9 +1,11 @@
 package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.Category;
-import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.domain.PooledSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,12 +14,19 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
+@Table(indexes = {
+        @Index(name = "idx_item_name", columnList = "name, item_id"),
+        @Index(name = "idx_item_price", columnList = "price, item_id"),
+        @Index(name = "idx_item_price_desc", columnList = "price desc, item_id desc"),
+        @Index(name = "idx_item_id_desc", columnList = "item_id desc")})
 public abstract class Item {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "item_id")
     private Long id;
 
@@ -25,25 +34,9 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    @Version
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
-
-//    ==비즈니스 로직==
-    /*
-    stock 추가
-    **/
-    public void addStock(int quantity) {
-        this.stockQuantity += quantity;
-    }
-
-    /*
-    stock 감소
-    **/
-    public void removeStock(int quantity) {
-        int restStock = this.stockQuantity - quantity;
-        if (restStock<0) {
-            throw new NotEnoughStockException("need more stock");
-        }
-        this.stockQuantity = restStock;
-    }
 }
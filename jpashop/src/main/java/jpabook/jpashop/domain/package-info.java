@@ -0,0 +1,4 @@
+@GenericGenerator(name = PooledSequenceGenerator.NAME, strategy = "jpabook.jpashop.domain.PooledSequenceGenerator")
+package jpabook.jpashop.domain;
+
+import org.hibernate.annotations.GenericGenerator;
@@ -0,0 +1,407 @@
+package jpabook.jpashop.load;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import jpabook.jpashop.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 대량 데이터 생성 - 회원, 상품(Book/Album/Movie), 카테고리 트리, 주문 (jpashop.seed.enabled=true 일 때 시작하면서 한번)
+ * ./gradlew bootRun --args='--jpashop.seed.enabled=true --jpashop.seed.members=1000000 --jpashop.seed.orders=5000000'
+ *
+ * JPA 를 거치지 않고 JDBC batch insert 로 넣는다. (entity 를 만들지 않으므로 수백만 건도 메모리 일정)
+ * id 는 지금 시퀀스 값 다음부터 쓰고 끝나면 시퀀스를 넣은 id 뒤로 옮기므로 기존 데이터에 더해도 된다.
+ * 주문은 일부 회원 / 인기 상품에 몰리도록 (u^skew, skew 가 클수록 더 몰림), 날짜는 최근 days 일에 id 순서대로
+ * 같은 random-seed 면 같은 데이터
+ * ApplicationReadyEvent 전에 끝나므로 회원 이름 필터 / 상품 검색 색인은 넣은 데이터까지 읽어서 만든다.
+ * 회원 이름은 "시드회원" + id - 가입한 회원 이름과 겹쳐서 unique 제약에 걸리지 않도록
+ * 주문 집계(sales_rollup / item_sales_rollup)는 넣은 주문만 모아서 shard 0 에 더한다. (V4 backfill 과 같은 집계)
+ * 주문 이벤트(outbox)는 만들지 않는다.
+ */
+@Slf4j
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "jpashop.seed.enabled", havingValue = "true")
+public class DatasetSeeder implements ApplicationRunner {
+
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "수원"};
+
+    private final int members;
+    private final int items;
+    private final int categoryDepth;
+    private final int categoryWidth;
+    private final int orders;
+    private final int maxItemsPerOrder;
+    private final double skew;
+    private final int days;
+    private final long randomSeed;
+    private final int batchSize;
+    private final DataSource dataSource;
+    private final EntityManagerFactory emf;
+
+    public DatasetSeeder(@Value("${jpashop.seed.members:10000}") int members,
+                         @Value("${jpashop.seed.items:1000}") int items,
+                         @Value("${jpashop.seed.category-depth:3}") int categoryDepth,
+                         @Value("${jpashop.seed.category-width:5}") int categoryWidth,
+                         @Value("${jpashop.seed.orders:100000}") int orders,
+                         @Value("${jpashop.seed.max-items-per-order:3}") int maxItemsPerOrder,
+                         @Value("${jpashop.seed.skew:2.0}") double skew,
+                         @Value("${jpashop.seed.days:365}") int days,
+                         @Value("${jpashop.seed.random-seed:42}") long randomSeed,
+                         @Value("${jpashop.seed.batch-size:1000}") int batchSize,
+                         DataSource dataSource, EntityManagerFactory emf) {
+        this.members = members;
+        this.items = items;
+        this.categoryDepth = categoryDepth;
+        this.categoryWidth = categoryWidth;
+        this.orders = orders;
+        this.maxItemsPerOrder = Math.max(1, maxItemsPerOrder);
+        this.skew = Math.max(1.0, skew);
+        this.days = Math.max(1, days);
+        this.randomSeed = randomSeed;
+        this.batchSize = Math.max(1, batchSize);
+        //p6spy 를 거치지 않도록 (statement 로그, SQL 지표에 seed insert 가 남지 않게)
+        this.dataSource = dataSource instanceof DecoratedDataSource
+                ? ((DecoratedDataSource) dataSource).getRealDataSource() : dataSource;
+        this.emf = emf;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.currentTimeMillis();
+        seed();
+        //JDBC 로 넣은 데이터는 hibernate 가 모르므로 2차 캐시 / 쿼리 캐시를 비운다.
+        emf.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        log.info("dataset seeded in {} ms", System.currentTimeMillis() - start);
+    }
+
+    public void seed() throws SQLException {
+        Random random = new Random(randomSeed);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long firstMember = reserve(connection, "member_seq", members);
+            insertMembers(connection, random, firstMember);
+            List<Long> leafCategories = insertCategories(connection, reserve(connection, "category_seq", categoryCount()));
+            long firstItem = reserve(connection, "item_seq", items);
+            insertItems(connection, random, firstItem, leafCategories);
+            long firstOrder = insertOrders(connection, random, firstMember, firstItem);
+            addRollups(connection, firstOrder);
+            connection.commit();
+        }
+    }
+
+    /**
+     * 시퀀스에서 count 개의 id 를 예약하고 첫 id 를 돌려준다.
+     * pooled-lo 는 시퀀스에서 받은 값부터 allocation_size 개를 쓰므로 hibernate 가 이미 받아둔 범위는 모두 다음 값보다 작다.
+     * -> 다음 값부터 count 개를 쓰고 시퀀스를 그 바로 뒤로 옮기면 겹치지 않는다.
+     */
+    private long reserve(Connection connection, String sequence, long count) throws SQLException {
+        long first;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select next value for " + sequence)) {
+            resultSet.next();
+            first = resultSet.getLong(1);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter sequence " + sequence + " restart with " + (first + count));
+        }
+        return first;
+    }
+
+    private void insertMembers(Connection connection, Random random, long firstId) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into member (member_id, name, normalized_name, city, street, zipcode) values (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < members; i++) {
+                long id = firstId + i;
+                String name = "시드회원" + id; //id 가 겹치지 않으므로 이름도 unique
+                statement.setLong(1, id);
+                statement.setString(2, name);
+                statement.setString(3, Member.normalizeName(name));
+                statement.setString(4, CITIES[random.nextInt(CITIES.length)]);
+                statement.setString(5, "거리" + random.nextInt(1000));
+                statement.setString(6, String.format("%05d", random.nextInt(100000)));
+                addBatch(connection, statement, i + 1);
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+        log.info("seed - {} members in {} ms", members, System.currentTimeMillis() - start);
+    }
+
+    private int categoryCount() {
+        int count = 0;
+        int level = 1;
+        for (int depth = 0; depth < categoryDepth; depth++) {
+            level *= categoryWidth;
+            count += level;
+        }
+        return count;
+    }
+
+    /** 깊이 category-depth, 카테고리마다 하위 category-width 개인 트리 - 상품을 붙일 맨 아래 카테고리 id 들을 돌려준다. */
+    private List<Long> insertCategories(Connection connection, long firstId) throws SQLException {
+        long id = firstId;
+        List<Long> parents = new ArrayList<>();
+        List<String> parentPaths = new ArrayList<>();
+        parents.add(null);
+        parentPaths.add("");
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into category (category_id, parent_id, name, path) values (?, ?, ?, ?)")) {
+            for (int depth = 0; depth < categoryDepth; depth++) {
+                List<Long> level = new ArrayList<>();
+                List<String> levelPaths = new ArrayList<>();
+                for (int p = 0; p < parents.size(); p++) {
+                    for (int c = 0; c < categoryWidth; c++) {
+                        String path = parentPaths.get(p) + id + "/";
+                        statement.setLong(1, id);
+                        if (parents.get(p) == null) {
+                            statement.setNull(2, Types.BIGINT);
+                        } else {
+                            statement.setLong(2, parents.get(p));
+                        }
+                        statement.setString(3, "카테고리" + id);
+                        statement.setString(4, path);
+                        statement.addBatch();
+                        level.add(id++);
+                        levelPaths.add(path);
+                    }
+                }
+                //부모가 먼저 들어가야 하므로 깊이마다
+                statement.executeBatch();
+                parents = level;
+                parentPaths = levelPaths;
+            }
+        }
+        connection.commit();
+        log.info("seed - {} categories (depth {}, width {})", categoryCount(), categoryDepth, categoryWidth);
+        return parents.get(0) == null ? List.of() : parents;
+    }
+
+    private void insertItems(Connection connection, Random random, long firstId, List<Long> categories) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (PreparedStatement item = connection.prepareStatement(
+                "insert into item (item_id, dtype, name, price, stock_quantity, version,"
+                        + " author, isbn, artist, etc, director, actor) values (?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement categoryItem = connection.prepareStatement(
+                     "insert into category_item (category_id, item_id) values (?, ?)")) {
+            for (int i = 0; i < items; i++) {
+                long id = firstId + i;
+                item.setLong(1, id);
+                item.setInt(4, (1 + random.nextInt(100)) * 500);
+                item.setInt(5, 1_000_000); //부하 테스트 중 재고가 떨어지지 않도록
+                for (int column = 6; column <= 11; column++) {
+                    item.setNull(column, Types.VARCHAR);
+                }
+                switch (i % 3) {
+                    case 0:
+                        item.setString(2, "B");
+                        item.setString(3, "책 " + id);
+                        item.setString(6, "저자" + random.nextInt(1000));
+                        item.setString(7, String.format("978-%010d", id));
+                        break;
+                    case 1:
+                        item.setString(2, "A");
+                        item.setString(3, "앨범 " + id);
+                        item.setString(8, "가수" + random.nextInt(1000));
+                        item.setString(9, "정규" + (1 + random.nextInt(10)) + "집");
+                        break;
+                    default:
+                        item.setString(2, "M");
+                        item.setString(3, "영화 " + id);
+                        item.setString(10, "감독" + random.nextInt(1000));
+                        item.setString(11, "배우" + random.nextInt(1000));
+                }
+                item.addBatch();
+                if (!categories.isEmpty()) {
+                    categoryItem.setLong(1, categories.get(random.nextInt(categories.size())));
+                    categoryItem.setLong(2, id);
+                    categoryItem.addBatch();
+                }
+                if ((i + 1) % batchSize == 0) {
+                    item.executeBatch();
+                    categoryItem.executeBatch();
+                    connection.commit();
+                }
+            }
+            item.executeBatch();
+            categoryItem.executeBatch();
+        }
+        connection.commit();
+        log.info("seed - {} items in {} ms", items, System.currentTimeMillis() - start);
+    }
+
+    /** 주문마다 배송 1, 주문상품 1 ~ max-items-per-order (한 주문 안의 상품은 겹치지 않게) - 첫 주문 id, 주문이 없으면 -1 */
+    private long insertOrders(Connection connection, Random random, long firstMember, long firstItem) throws SQLException {
+        if (members == 0 || items == 0 || orders == 0) {
+            return -1;
+        }
+        long start = System.currentTimeMillis();
+        long firstOrder = reserve(connection, "order_seq", orders);
+        long firstDelivery = reserve(connection, "delivery_seq", orders);
+        long orderItemId = reserve(connection, "order_item_seq", (long) orders * maxItemsPerOrder);
+        LocalDateTime from = LocalDateTime.now().minusDays(days);
+        long secondsPerOrder = Math.max(1, days * 86400L / orders);
+        try (PreparedStatement delivery = connection.prepareStatement(
+                "insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)");
+             PreparedStatement order = connection.prepareStatement(
+                     "insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, ?)");
+             PreparedStatement orderItem = connection.prepareStatement(
+                     "insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < orders; i++) {
+                long orderId = firstOrder + i;
+                long deliveryId = firstDelivery + i;
+                boolean cancelled = random.nextInt(10) == 0;
+                LocalDateTime orderDate = from.plusSeconds(i * secondsPerOrder + random.nextInt((int) Math.min(secondsPerOrder, Integer.MAX_VALUE)));
+
+                delivery.setLong(1, deliveryId);
+                delivery.setString(2, CITIES[random.nextInt(CITIES.length)]);
+                delivery.setString(3, "거리" + random.nextInt(1000));
+                delivery.setString(4, String.format("%05d", random.nextInt(100000)));
+                //오래된 주문일수록 배송 완료 (취소된 주문은 배송 전)
+                boolean delivered = !cancelled && random.nextInt(orders) >= i;
+                delivery.setString(5, delivered ? "COMP" : "READY");
+                delivery.addBatch();
+
+                order.setLong(1, orderId);
+                order.setLong(2, firstMember + skewed(random, members));
+                order.setLong(3, deliveryId);
+                order.setTimestamp(4, Timestamp.valueOf(orderDate));
+                order.setString(5, cancelled ? "CANCEL" : "ORDER");
+                order.addBatch();
+
+                int count = 1 + random.nextInt(maxItemsPerOrder);
+                long[] picked = new long[count];
+                for (int n = 0; n < count; n++) {
+                    long itemId = firstItem + skewed(random, items);
+                    if (contains(picked, n, itemId)) {
+                        continue;
+                    }
+                    picked[n] = itemId;
+                    orderItem.setLong(1, orderItemId++);
+                    orderItem.setLong(2, orderId);
+                    orderItem.setLong(3, itemId);
+                    orderItem.setInt(4, (1 + random.nextInt(100)) * 500);
+                    orderItem.setInt(5, 1 + random.nextInt(3));
+                    orderItem.addBatch();
+                }
+
+                if ((i + 1) % batchSize == 0) {
+                    //fk 순서대로 (배송 -> 주문 -> 주문상품)
+                    delivery.executeBatch();
+                    order.executeBatch();
+                    orderItem.executeBatch();
+                    connection.commit();
+                }
+                if ((i + 1) % 1_000_000 == 0) {
+                    log.info("seed - {} / {} orders", i + 1, orders);
+                }
+            }
+            delivery.executeBatch();
+            order.executeBatch();
+            orderItem.executeBatch();
+        }
+        connection.commit();
+        log.info("seed - {} orders in {} ms", orders, System.currentTimeMillis() - start);
+        return firstOrder;
+    }
+
+    /**
+     * 넣은 주문(firstOrder ~)의 집계를 shard 0 행에 더한다. 기존 데이터에 더하는 경우 같은 시간대 행이 이미 있을 수 있으므로 merge
+     * 집계 기준은 V4__sales_rollup 의 backfill 과 같다. (주문일 시간대, 취소도 주문한 시간대에)
+     */
+    private void addRollups(Connection connection, long firstOrder) throws SQLException {
+        if (firstOrder < 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        String seeded = " where o.order_id between " + firstOrder + " and " + (firstOrder + orders - 1);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(mergeRollup("sales_rollup", "",
+                    "select p.period, date_trunc(p.period, o.order_date) bucket,"
+                            + " count(*) order_count, sum(t.units) units, sum(t.revenue) revenue,"
+                            + " sum(case when o.status = 'CANCEL' then 1 else 0 end) cancel_count,"
+                            + " sum(case when o.status = 'CANCEL' then t.units else 0 end) cancel_units,"
+                            + " sum(case when o.status = 'CANCEL' then t.revenue else 0 end) cancel_revenue"
+                            + " from orders o"
+                            + " join (select order_id, sum(count) units, sum(cast(order_price as bigint) * count) revenue"
+                            + " from order_item group by order_id) t on t.order_id = o.order_id"
+                            + " cross join (select 'HOUR' period union all select 'DAY') p"
+                            + seeded
+                            + " group by p.period, date_trunc(p.period, o.order_date)"));
+            statement.executeUpdate(mergeRollup("item_sales_rollup", "item_id",
+                    "select p.period, date_trunc(p.period, o.order_date) bucket, oi.item_id,"
+                            + " count(*) order_count, sum(oi.count) units, sum(cast(oi.order_price as bigint) * oi.count) revenue,"
+                            + " sum(case when o.status = 'CANCEL' then 1 else 0 end) cancel_count,"
+                            + " sum(case when o.status = 'CANCEL' then oi.count else 0 end) cancel_units,"
+                            + " sum(case when o.status = 'CANCEL' then cast(oi.order_price as bigint) * oi.count else 0 end) cancel_revenue"
+                            + " from order_item oi"
+                            + " join orders o on o.order_id = oi.order_id"
+                            + " cross join (select 'HOUR' period union all select 'DAY') p"
+                            + seeded
+                            + " group by p.period, date_trunc(p.period, o.order_date), oi.item_id"));
+        }
+        connection.commit();
+        log.info("seed - sales rollups in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private static String mergeRollup(String table, String key, String select) {
+        String[] counts = {"order_count", "units", "revenue", "cancel_count", "cancel_units", "cancel_revenue"};
+        StringBuilder update = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (String count : counts) {
+            update.append(update.length() == 0 ? "" : ", ").append(count).append(" = r.").append(count).append(" + s.").append(count);
+            values.append(", s.").append(count);
+        }
+        String keyColumn = key.isEmpty() ? "" : key + ", ";
+        String keyValue = key.isEmpty() ? "" : "s." + key + ", ";
+        String keyMatch = key.isEmpty() ? "" : " and r." + key + " = s." + key;
+        return "merge into " + table + " r using (" + select + ") s"
+                + " on (r.period = s.period and r.bucket = s.bucket" + keyMatch + " and r.shard = 0)"
+                + " when matched then update set " + update
+                + " when not matched then insert (period, bucket, " + keyColumn + "shard, " + String.join(", ", counts) + ")"
+                + " values (s.period, s.bucket, " + keyValue + "0" + values + ")";
+    }
+
+    /** 0 ~ size-1, 앞쪽일수록 자주 (u^skew) */
+    private int skewed(Random random, int size) {
+        return (int) (Math.pow(random.nextDouble(), skew) * size);
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addBatch(Connection connection, PreparedStatement statement, int count) throws SQLException {
+        statement.addBatch();
+        if (count % batchSize == 0) {
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemSort;
+import jpabook.jpashop.repository.MemberQueryDto;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * closed-loop 부하 - 가상 사용자 users 명이 각자 요청 -> 응답 -> think-time -> 다음 요청을 반복 (jpashop.load.enabled=true)
+ * ./gradlew bootRun --args='--jpashop.seed.enabled=true --jpashop.load.enabled=true --jpashop.load.users=32'
+ *
+ * 요청은 weight 비율로 섞는다.
+ * - order   : POST /order (회원, 상품은 앞쪽에 몰리게)
+ * - orders  : GET /orders?memberName= (주문 목록 화면, 회원 이름 검색)
+ * - items   : GET /items?page=&sort= (상품 목록 화면)
+ * - members : GET /api/v2/members (전체 회원)
+ * warmup 동안의 요청은 버리고, duration 동안 엔드포인트별 처리량 / 지연시간 p50 p90 p99 max 를 로그로 남긴다.
+ * 주문할 회원 / 상품 id 는 이 서버의 DB 에서 읽으므로 base-url 은 같은 DB 를 쓰는 서버여야 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.load.enabled", havingValue = "true")
+public class LoadDriver {
+
+    public enum Endpoint {
+        ORDER, ORDERS, ITEMS, MEMBERS
+    }
+
+    private static final int ID_SAMPLE = 1000;
+
+    private final String baseUrl;
+    private final int users;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final long thinkTimeMillis;
+    private final int[] weights;
+    private final boolean exitWhenDone;
+    private final MemberService memberService;
+    private final ItemService itemService;
+    private final ConfigurableApplicationContext context;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private volatile LoadReport report;
+
+    public LoadDriver(@Value("${jpashop.load.base-url:}") String baseUrl,
+                      @Value("${jpashop.load.users:16}") int users,
+                      @Value("${jpashop.load.warmup:10}") long warmupSeconds,
+                      @Value("${jpashop.load.duration:60}") long durationSeconds,
+                      @Value("${jpashop.load.think-time:0}") long thinkTimeMillis,
+                      @Value("${jpashop.load.weight.order:1}") int orderWeight,
+                      @Value("${jpashop.load.weight.orders:2}") int ordersWeight,
+                      @Value("${jpashop.load.weight.items:4}") int itemsWeight,
+                      @Value("${jpashop.load.weight.members:1}") int membersWeight,
+                      @Value("${jpashop.load.exit-when-done:true}") boolean exitWhenDone,
+                      MemberService memberService, ItemService itemService, ConfigurableApplicationContext context) {
+        this.baseUrl = baseUrl;
+        this.users = Math.max(1, users);
+        this.warmupNanos = Duration.ofSeconds(warmupSeconds).toNanos();
+        this.durationNanos = Duration.ofSeconds(durationSeconds).toNanos();
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.weights = new int[]{orderWeight, ordersWeight, itemsWeight, membersWeight};
+        this.exitWhenDone = exitWhenDone;
+        this.memberService = memberService;
+        this.itemService = itemService;
+        this.context = context;
+    }
+
+    /** 서버가 요청을 받을 수 있게 된 뒤 별도 스레드에서 시작 (시작 이벤트를 막지 않도록) */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(() -> {
+            int status = 0;
+            try {
+                report = run();
+                log.info("load finished\n{}", report);
+            } catch (Exception e) {
+                status = 1;
+                log.error("load failed", e);
+            }
+            if (exitWhenDone) {
+                int exitCode = status;
+                System.exit(SpringApplication.exit(context, () -> exitCode));
+            }
+        }, "load-driver");
+        thread.start();
+    }
+
+    /** 마지막 실행 결과 (끝나기 전이면 null) */
+    public LoadReport getReport() {
+        return report;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        String url = StringUtils.hasText(baseUrl) ? baseUrl
+                : "http://localhost:" + context.getEnvironment().getProperty("local.server.port", "8080");
+        List<MemberQueryDto> members = memberService.findMembers(null, ID_SAMPLE);
+        List<Item> items = itemService.findItems(ItemSort.ID, 0, ID_SAMPLE).getContent();
+        if (members.isEmpty() || items.isEmpty()) {
+            throw new IllegalStateException("회원과 상품이 있어야 합니다. (jpashop.seed.enabled=true)");
+        }
+        log.info("load - {} users, warmup {} s, duration {} s, weights {} -> {}", users,
+                Duration.ofNanos(warmupNanos).toSeconds(), Duration.ofNanos(durationNanos).toSeconds(),
+                Arrays.toString(weights), url);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        List<User> loadUsers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = new User(url, members, items, measureFrom, end);
+            loadUsers.add(user);
+            Thread thread = new Thread(user, "load-user-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Endpoint, LoadReport.Builder> results = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            results.put(endpoint, new LoadReport.Builder(endpoint));
+        }
+        for (User user : loadUsers) {
+            user.results.forEach((endpoint, result) -> results.get(endpoint).add(result));
+        }
+        return new LoadReport(users, durationNanos, results.values());
+    }
+
+    private Endpoint next(ThreadLocalRandom random) {
+        int total = Arrays.stream(weights).sum();
+        int pick = random.nextInt(Math.max(total, 1));
+        for (Endpoint endpoint : Endpoint.values()) {
+            pick -= weights[endpoint.ordinal()];
+            if (pick < 0) {
+                return endpoint;
+            }
+        }
+        return Endpoint.ITEMS;
+    }
+
+    /** 0 ~ size-1, 앞쪽일수록 자주 */
+    private static int skewed(ThreadLocalRandom random, int size) {
+        double u = random.nextDouble();
+        return (int) (u * u * size);
+    }
+
+    /**
+     * 가상 사용자 한명 - 지연시간은 사용자마다 따로 모았다가 끝나고 합친다. (측정 중 동기화 없음)
+     */
+    private class User implements Runnable {
+
+        private final String url;
+        private final List<MemberQueryDto> members;
+        private final List<Item> items;
+        private final long measureFrom;
+        private final long end;
+        private final Map<Endpoint, LoadReport.Latencies> results = new EnumMap<>(Endpoint.class);
+
+        User(String url, List<MemberQueryDto> members, List<Item> items, long measureFrom, long end) {
+            this.url = url;
+            this.members = members;
+            this.items = items;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            for (Endpoint endpoint : Endpoint.values()) {
+                results.put(endpoint, new LoadReport.Latencies());
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                Endpoint endpoint = next(random);
+                boolean ok;
+                try {
+                    ok = httpClient.send(request(endpoint, random), HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long latency = System.nanoTime() - now;
+                if (now >= measureFrom) {
+                    results.get(endpoint).add(latency, ok);
+                }
+                if (thinkTimeMillis > 0) {
+                    try {
+                        Thread.sleep(thinkTimeMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private HttpRequest request(Endpoint endpoint, ThreadLocalRandom random) {
+            MemberQueryDto member = members.get(skewed(random, members.size()));
+            switch (endpoint) {
+                case ORDER:
+                    Item item = items.get(skewed(random, items.size()));
+                    String form = "memberId=" + member.getId() + "&itemId=" + item.getId() + "&count=1";
+                    return HttpRequest.newBuilder(URI.create(url + "/order"))
+                            .header("Content-Type", "application/x-www-form-urlencoded")
+                            .POST(HttpRequest.BodyPublishers.ofString(form))
+                            .build();
+                case ORDERS:
+                    return get("/orders?memberName=" + URLEncoder.encode(member.getName(), StandardCharsets.UTF_8));
+                case MEMBERS:
+                    return get("/api/v2/members");
+                default:
+                    ItemSort[] sorts = ItemSort.values();
+                    return get("/items?page=" + random.nextInt(5) + "&sort=" + sorts[random.nextInt(sorts.length)]);
+            }
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(url + path)).GET().build();
+        }
+    }
+}
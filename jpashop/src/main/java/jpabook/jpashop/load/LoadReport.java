@@ -0,0 +1,141 @@
+package jpabook.jpashop.load;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 부하 결과 - 엔드포인트별, 전체 처리량 / 지연시간 백분위
+ */
+@Getter
+public class LoadReport {
+
+    private final int users;
+    private final double durationSeconds;
+    private final List<Stats> endpoints;
+    private final Stats total;
+
+    LoadReport(int users, long durationNanos, Collection<Builder> builders) {
+        this.users = users;
+        this.durationSeconds = durationNanos / 1e9;
+        List<Stats> endpoints = new ArrayList<>();
+        Builder total = new Builder(null);
+        for (Builder builder : builders) {
+            endpoints.add(builder.build(durationSeconds));
+            total.add(builder.latencies);
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.total = total.build(durationSeconds);
+    }
+
+    public Stats get(LoadDriver.Endpoint endpoint) {
+        return endpoints.stream()
+                .filter(stats -> stats.getEndpoint() == endpoint)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%d users, %.0f s%n", users, durationSeconds));
+        sb.append(String.format("%-8s %9s %7s %9s %8s %8s %8s %8s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Stats stats : endpoints) {
+            sb.append(stats).append(System.lineSeparator());
+        }
+        return sb.append(total).toString();
+    }
+
+    @Getter
+    public static class Stats {
+
+        private final LoadDriver.Endpoint endpoint; // 전체는 null
+        private final long count;
+        private final long errors;
+        private final double throughput; // req/s
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max; // ms
+
+        Stats(LoadDriver.Endpoint endpoint, long[] sorted, long errors, double durationSeconds) {
+            this.endpoint = endpoint;
+            this.count = sorted.length;
+            this.errors = errors;
+            this.throughput = durationSeconds > 0 ? sorted.length / durationSeconds : 0;
+            this.p50 = percentile(sorted, 0.50);
+            this.p90 = percentile(sorted, 0.90);
+            this.p99 = percentile(sorted, 0.99);
+            this.max = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6;
+        }
+
+        /** nearest-rank */
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f",
+                    endpoint == null ? "TOTAL" : endpoint.name().toLowerCase(),
+                    count, errors, throughput, p50, p90, p99, max);
+        }
+    }
+
+    /**
+     * 가상 사용자 한명이 모으는 지연시간 (ns) - 한 스레드에서만 쓴다
+     */
+    static class Latencies {
+
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long latencyNanos, boolean ok) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+    }
+
+    /**
+     * 사용자별 Latencies 를 합쳐서 정렬
+     */
+    static class Builder {
+
+        private final LoadDriver.Endpoint endpoint;
+        private final Latencies latencies = new Latencies();
+
+        Builder(LoadDriver.Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void add(Latencies other) {
+            int size = latencies.size + other.size;
+            if (size > latencies.values.length) {
+                latencies.values = Arrays.copyOf(latencies.values, size);
+            }
+            System.arraycopy(other.values, 0, latencies.values, latencies.size, other.size);
+            latencies.size = size;
+            latencies.errors += other.errors;
+        }
+
+        Stats build(double durationSeconds) {
+            long[] sorted = Arrays.copyOf(latencies.values, latencies.size);
+            Arrays.sort(sorted);
+            return new Stats(endpoint, sorted, latencies.errors, durationSeconds);
+        }
+    }
+}
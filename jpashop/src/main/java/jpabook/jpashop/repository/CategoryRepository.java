@@ -0,0 +1,51 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+//    카테고리 저장 - id 를 받은 뒤 path 를 채운다 (cascade 로 같이 저장되는 하위 카테고리까지)
+    public void save(Category category) {
+        em.persist(category);
+        category.updatePath();
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+//    전체 카테고리 트리 - [id, name, parent id, path] (entity 를 읽지 않음)
+    public List<Object[]> findAllNodes() {
+        return em.createQuery("select c.id, c.name, c.parent.id, c.path from Category c", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * path 로 시작하는 카테고리(= 하위 카테고리 전체)의 상품 - 쿼리 한번
+     * category.path 인덱스 범위 -> category_item PK -> item PK, item_id keyset 페이징
+     */
+    public List<Item> findItemsByPathPrefix(String path, Long cursor, int limit) {
+        String jpql = "select distinct i from Category c join c.items i" +
+                " where c.path like :path" +
+                (cursor != null ? " and i.id > :cursor" : "") +
+                " order by i.id";
+        TypedQuery<Item> query = em.createQuery(jpql, Item.class)
+                .setParameter("path", path + "%")
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("cursor", cursor);
+        }
+        return query.getResultList();
+    }
+}
@@ -2,10 +2,23 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
@@ -22,13 +35,129 @@ public class ItemRepository {
         }
     }
 
+//    상품 여러건 저장 - insert 후 영속성 컨텍스트를 비워서 대량 등록 중에도 메모리를 일정하게 유지
+    public void saveAll(List<Item> items) {
+        items.forEach(em::persist);
+        em.flush();
+        em.clear();
+    }
+
 //    아이템 조회
     public Item findOne(Long id) {
         return em.find(Item.class, id);
     }
 
-//    아이템 전체조회
+//    아이템 전체조회 - query cache (상품이 추가/삭제되면 hibernate 가 자동으로 무효화)
     public List<Item> findAll() {
-        return em.createQuery("select i from Item i", Item.class).getResultList();
+        return em.createQuery("select i from Item i", Item.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+    }
+
+//    아이템 여러건 조회 (IN 쿼리 한번)
+    public List<Item> findAll(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+//    상품 수
+    public long count() {
+        return em.createQuery("select count(i) from Item i", Long.class)
+                .getSingleResult();
+    }
+
+//    상품 수 - query cache (목록 페이지마다 세지 않도록, 상품이 추가/삭제되면 무효화)
+    public long countCached() {
+        return em.createQuery("select count(i) from Item i", Long.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    /**
+     * 상품 목록 한 페이지 - 정렬 인덱스에서 id 만 offset/limit 으로 읽고 (query cache)
+     * 상품은 id 로 2차 캐시에서, 없는 것만 IN 쿼리 한번 (id 순서 유지)
+     */
+    public List<Item> findPage(ItemSort sort, int offset, int limit) {
+        List<Long> ids = em.createQuery("select i.id from Item i order by " + sort.getOrderBy(), Long.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return em.unwrap(Session.class).byMultipleIds(Item.class)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull) //id 를 읽은 뒤 지워진 상품
+                .collect(Collectors.toList());
+    }
+
+//    전체 상품을 한건씩 넘긴다 - 2차 캐시를 쓰지 않고 1000건마다 영속성 컨텍스트를 비운다 (검색 색인 재생성)
+    public void findAllScroll(Consumer<Item> consumer) {
+        Query<Item> query = em.createQuery("select i from Item i", Item.class)
+                .unwrap(Query.class);
+        try (ScrollableResults results = query.setFetchSize(1000)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((Item) results.get(0));
+                if (++count % 1000 == 0) {
+                    em.clear();
+                }
+            }
+        }
+    }
+
+//    재고 차감 - 재고가 충분할 때만 차감하고 차감된 row 수를 반환 (0 이면 재고 부족)
+    public int removeStock(Long itemId, int quantity) {
+        return updateStock("update item set stock_quantity = stock_quantity - :quantity, version = version + 1" +
+                " where item_id = :id and stock_quantity >= :quantity", itemId, quantity);
+    }
+
+//    재고 증가
+    public int addStock(Long itemId, int quantity) {
+        return updateStock("update item set stock_quantity = stock_quantity + :quantity, version = version + 1" +
+                " where item_id = :id", itemId, quantity);
+    }
+
+    /**
+     * 재고 update 는 native SQL 로 하고 해당 상품만 2차 캐시에서 지운다.
+     * JPQL 벌크 update 는 Item 캐시 영역 전체를 비우므로 주문이 들어올 때마다 상품 캐시가 모두 날아간다.
+     * 커밋 전에 다른 트랜잭션이 예전 재고를 다시 캐시에 넣을 수 있으므로 트랜잭션이 끝난 뒤에 한번 더 지운다.
+     */
+    private int updateStock(String sql, Long itemId, int quantity) {
+        em.flush(); //아직 insert 되지 않은 상품이 있을 수 있으므로 (native SQL 은 자동 flush 대상을 모름)
+        int updated = em.createNativeQuery(sql)
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("") //다른 캐시 영역은 무효화하지 않음
+                .executeUpdate();
+        evict(itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(itemId);
+                }
+            });
+        }
+        return updated;
+    }
+
+    private void evict(Long itemId) {
+        em.getEntityManagerFactory().getCache().evict(Item.class, itemId);
+    }
+
+//    벌크 update 는 영속성 컨텍스트를 거치지 않으므로 이미 읽어온 상품이면 DB 값으로 다시 읽어옴
+    public void refreshIfLoaded(Long itemId) {
+        Item item = em.getReference(Item.class, itemId);
+        if (em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(item)) {
+            em.refresh(item);
+        }
     }
 }
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 상품 목록 정렬 - 각각 인덱스 순서 그대로 읽도록 (id 는 같은 값일 때 순서를 고정)
+ */
+public enum ItemSort {
+    ID("i.id desc"), // 최근 등록 순
+    NAME("i.name, i.id"), // idx_item_name
+    PRICE_ASC("i.price, i.id"), // idx_item_price
+    PRICE_DESC("i.price desc, i.id desc"); // idx_item_price 역순
+
+    private final String orderBy;
+
+    ItemSort(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+}
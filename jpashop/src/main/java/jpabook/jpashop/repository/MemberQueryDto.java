@@ -0,0 +1,17 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 회원 목록 조회용 DTO - entity 대신 필요한 컬럼만 조회 (영속성 컨텍스트에 올라가지 않음)
+ */
+@Getter
+@AllArgsConstructor
+public class MemberQueryDto {
+
+    private Long id;
+    private String name;
+    private Address address;
+}
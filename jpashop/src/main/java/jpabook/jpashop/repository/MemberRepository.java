@@ -1,9 +1,20 @@
 package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.Member;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 @Repository
 public class MemberRepository {
     @PersistenceContext
@@ -11,6 +22,16 @@ public class MemberRepository {
     public void save(Member member) {
         em.persist(member);
     }
+    /**
+     * 저장 후 바로 insert - name unique 제약 위반을 커밋 시점이 아니라 여기서 DataIntegrityViolationException 으로 받는다.
+     */
+    public void saveAndFlush(Member member) {
+        em.persist(member);
+        em.flush();
+    }
+    public void flush() {
+        em.flush();
+    }
     public Member findOne(Long id) {
         return em.find(Member.class, id);
     }
@@ -18,6 +39,87 @@ public class MemberRepository {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
+    /**
+     * 회원 목록 - member_id keyset 페이징, cursor(이전 페이지 마지막 id) 보다 큰 회원을 limit 건
+     */
+    public List<MemberQueryDto> findAllByCursor(Long cursor, int limit) {
+        String jpql = "select new jpabook.jpashop.repository.MemberQueryDto(m.id, m.name, m.address)" +
+                " from Member m" +
+                (cursor != null ? " where m.id > :cursor" : "") +
+                " order by m.id";
+        TypedQuery<MemberQueryDto> query = em.createQuery(jpql, MemberQueryDto.class)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("cursor", cursor);
+        }
+        return query.getResultList();
+    }
+    /**
+     * 회원 수 - query cache (목록 페이지마다 세지 않도록, 회원이 추가/삭제되면 무효화)
+     */
+    public long countCached() {
+        return em.createQuery("select count(m) from Member m", Long.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+    /**
+     * 회원 목록 한 페이지 - 정렬 인덱스에서 id 만 offset/limit 으로 읽고 (query cache)
+     * 그 id 의 회원 컬럼만 IN 쿼리 한번 (id 순서 유지)
+     */
+    public List<MemberQueryDto> findPage(MemberSort sort, int offset, int limit) {
+        List<Long> ids = em.createQuery("select m.id from Member m order by " + sort.getOrderBy(), Long.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, MemberQueryDto> members = em.createQuery(
+                        "select new jpabook.jpashop.repository.MemberQueryDto(m.id, m.name, m.address)" +
+                                " from Member m where m.id in :ids", MemberQueryDto.class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(MemberQueryDto::getId, Function.identity()));
+        return ids.stream()
+                .map(members::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+    /**
+     * 이름 중복 확인 - entity 를 읽지 않고 name 인덱스에서 한건만 확인
+     */
+    public boolean existsByName(String name) {
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+    /**
+     * 전체 회원 이름을 한건씩 넘긴다. (목록을 메모리에 올리지 않음)
+     */
+    public void findAllNames(Consumer<String> consumer) {
+        Query<String> query = em.createQuery("select m.name from Member m", String.class)
+                .unwrap(Query.class);
+        try (ScrollableResults results = query.setFetchSize(1000).scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((String) results.get(0));
+            }
+        }
+    }
+    /**
+     * 전체 회원 id, 이름을 한건씩 넘긴다. (목록을 메모리에 올리지 않음)
+     */
+    public void findAllIdAndNames(BiConsumer<Long, String> consumer) {
+        Query<Object[]> query = em.createQuery("select m.id, m.name from Member m", Object[].class)
+                .unwrap(Query.class);
+        try (ScrollableResults results = query.setFetchSize(1000).scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((Long) results.get(0), (String) results.get(1));
+            }
+        }
+    }
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name",
                         Member.class)
@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 회원 목록 정렬 - 이름은 unique 라 uk_member_name 순서만으로 고정
+ */
+public enum MemberSort {
+    ID("m.id"),
+    NAME("m.name");
+
+    private final String orderBy;
+
+    MemberSort(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+}
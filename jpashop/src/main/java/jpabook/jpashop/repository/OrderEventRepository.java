@@ -0,0 +1,37 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderEventRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderEvent event) {
+        em.persist(event);
+    }
+
+//    보내지 않은 이벤트를 오래된 순으로 limit 건
+    public List<OrderEvent> findPending(int limit) {
+        return em.createQuery("select e from OrderEvent e order by e.id", OrderEvent.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public long countPending() {
+        return em.createQuery("select count(e) from OrderEvent e", Long.class)
+                .getSingleResult();
+    }
+
+    public void deleteAll(List<Long> ids) {
+        em.createQuery("delete from OrderEvent e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
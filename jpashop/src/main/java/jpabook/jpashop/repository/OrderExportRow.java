@@ -0,0 +1,29 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 내보내기 한 행 (주문상품 1건 + 주문, 회원, 배송 정보)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderExportRow {
+
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private String memberName;
+    private String city;
+    private String street;
+    private String zipcode;
+    private DeliveryStatus deliveryStatus;
+    private Long itemId;
+    private String itemName;
+    private int orderPrice;
+    private int count;
+}
@@ -0,0 +1,234 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 검색 동적 쿼리 빌더
+ * 조건을 호출 순서와 상관없이 항상 같은 순서, 같은 파라미터 이름으로 붙인다.
+ * -> 조건 조합마다 JPQL 문자열이 하나로 정해지고 값은 파라미터로만 바뀌므로
+ *    hibernate query plan cache 가 재사용된다. (조합 수 만큼만 파싱)
+ */
+public class OrderQueryBuilder {
+
+    private boolean fetchMemberDelivery;
+    private OrderStatus status;
+    private String memberName;
+    private boolean memberNameContains;
+    private Collection<Long> memberIds;
+    private LocalDateTime orderDateFrom;
+    private LocalDateTime orderDateTo;
+    private Long itemId;
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Long cursor;
+
+    public static OrderQueryBuilder from(OrderSearch orderSearch) {
+        OrderQueryBuilder builder = new OrderQueryBuilder()
+                .status(orderSearch.getOrderStatus())
+                .item(orderSearch.getItemId())
+                .price(orderSearch.getMinPrice(), orderSearch.getMaxPrice());
+        if (orderSearch.getMemberNameMatch() == OrderSearch.MemberNameMatch.CONTAINS) {
+            builder.memberNameContains(orderSearch.getMemberName());
+        } else {
+            builder.memberNamePrefix(orderSearch.getMemberName());
+        }
+        if (orderSearch.getOrderDateFrom() != null) {
+            builder.orderDateFrom(orderSearch.getOrderDateFrom().atStartOfDay());
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            builder.orderDateTo(orderSearch.getOrderDateTo().plusDays(1).atStartOfDay());
+        }
+        return builder;
+    }
+
+    /** member, delivery fetch join */
+    public OrderQueryBuilder fetchMemberDelivery() {
+        this.fetchMemberDelivery = true;
+        return this;
+    }
+
+    public OrderQueryBuilder status(OrderStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    /** 회원 이름 앞부분 일치 (정규화 이름 like 'prefix%' - idx_member_normalized_name 범위 검색) */
+    public OrderQueryBuilder memberNamePrefix(String memberNamePrefix) {
+        this.memberName = StringUtils.hasText(memberNamePrefix) ? Member.normalizeName(memberNamePrefix) : null;
+        this.memberNameContains = false;
+        return this;
+    }
+
+    /** 회원 이름 포함 (정규화 이름 like '%keyword%' - memberIds 로 후보를 좁히지 않으면 member 전체를 읽는다) */
+    public OrderQueryBuilder memberNameContains(String keyword) {
+        this.memberName = StringUtils.hasText(keyword) ? Member.normalizeName(keyword) : null;
+        this.memberNameContains = true;
+        return this;
+    }
+
+    /** 해당 회원들의 주문 (비어있지 않은 목록만) */
+    public OrderQueryBuilder memberIds(Collection<Long> memberIds) {
+        this.memberIds = memberIds == null || memberIds.isEmpty() ? null : memberIds;
+        return this;
+    }
+
+    /** from 이후 주문 (from 포함) */
+    public OrderQueryBuilder orderDateFrom(LocalDateTime from) {
+        this.orderDateFrom = from;
+        return this;
+    }
+
+    /** to 이전 주문 (to 미포함) */
+    public OrderQueryBuilder orderDateTo(LocalDateTime to) {
+        this.orderDateTo = to;
+        return this;
+    }
+
+    /** 해당 상품을 포함한 주문 */
+    public OrderQueryBuilder item(Long itemId) {
+        this.itemId = itemId;
+        return this;
+    }
+
+    /** 주문가격이 범위 안인 주문상품을 포함한 주문 */
+    public OrderQueryBuilder price(Integer minPrice, Integer maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    /** keyset 페이징 - cursor 보다 작은 order_id */
+    public OrderQueryBuilder cursor(Long cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    public String toJpql() {
+        StringBuilder jpql = new StringBuilder("select o from Order o");
+        if (fetchMemberDelivery) {
+            jpql.append(" join fetch o.member m join fetch o.delivery d");
+        } else {
+            jpql.append(" join o.member m");
+        }
+        //최신 주문부터 (PK 역순)
+        return jpql.append(where()).append(" order by o.id desc").toString();
+    }
+
+    /**
+     * 내보내기용 JPQL - 주문상품 한건당 한 행, entity 대신 OrderExportRow 로 조회 (영속성 컨텍스트에 쌓이지 않음)
+     * 검색 조건은 toJpql() 과 같고 상품/가격 조건은 해당 주문상품을 포함한 주문의 모든 주문상품을 내보낸다.
+     */
+    public String toExportJpql() {
+        return "select new jpabook.jpashop.repository.OrderExportRow(" +
+                "o.id, o.orderDate, o.status, m.name, d.address.city, d.address.street, d.address.zipcode, d.status," +
+                " i.id, i.name, oi.orderPrice, oi.count)" +
+                " from OrderItem oi join oi.order o join o.member m join o.delivery d join oi.item i" +
+                where() +
+                " order by o.id desc, oi.id";
+    }
+
+    private String where() {
+        List<String> where = new ArrayList<>();
+        if (status != null) {
+            where.add("o.status = :status");
+        }
+        if (memberIds != null) {
+            where.add("m.id in :memberIds");
+        }
+        if (memberName != null) {
+            where.add("m.normalizedName like :name escape '!'");
+        }
+        if (orderDateFrom != null) {
+            where.add("o.orderDate >= :orderDateFrom");
+        }
+        if (orderDateTo != null) {
+            where.add("o.orderDate < :orderDateTo");
+        }
+        if (itemId != null || minPrice != null || maxPrice != null) {
+            where.add(orderItemSubquery());
+        }
+        if (cursor != null) {
+            where.add("o.id < :cursor");
+        }
+        return where.isEmpty() ? "" : " where " + String.join(" and ", where);
+    }
+
+    private String orderItemSubquery() {
+        List<String> conditions = new ArrayList<>();
+        conditions.add("s.order = o");
+        if (itemId != null) {
+            conditions.add("s.item.id = :itemId");
+        }
+        if (minPrice != null) {
+            conditions.add("s.orderPrice >= :minPrice");
+        }
+        if (maxPrice != null) {
+            conditions.add("s.orderPrice <= :maxPrice");
+        }
+        return "exists (select s.id from OrderItem s where " + String.join(" and ", conditions) + ")";
+    }
+
+    public Map<String, Object> parameters() {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (status != null) {
+            parameters.put("status", status);
+        }
+        if (memberIds != null) {
+            parameters.put("memberIds", memberIds);
+        }
+        if (memberName != null) {
+            parameters.put("name", (memberNameContains ? "%" : "") + escapeLike(memberName) + "%");
+        }
+        if (orderDateFrom != null) {
+            parameters.put("orderDateFrom", orderDateFrom);
+        }
+        if (orderDateTo != null) {
+            parameters.put("orderDateTo", orderDateTo);
+        }
+        if (itemId != null) {
+            parameters.put("itemId", itemId);
+        }
+        if (minPrice != null) {
+            parameters.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            parameters.put("maxPrice", maxPrice);
+        }
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
+    }
+
+    public TypedQuery<Order> build(EntityManager em, int limit) {
+        TypedQuery<Order> query = em.createQuery(toJpql(), Order.class)
+                .setMaxResults(limit);
+        parameters().forEach(query::setParameter);
+        return query;
+    }
+
+    public TypedQuery<OrderExportRow> buildExport(EntityManager em) {
+        TypedQuery<OrderExportRow> query = em.createQuery(toExportJpql(), OrderExportRow.class);
+        parameters().forEach(query::setParameter);
+        return query;
+    }
+
+    //    사용자가 입력한 %, _ 는 문자 그대로 검색
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+    }
+}
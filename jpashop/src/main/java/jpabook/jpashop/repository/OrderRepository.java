@@ -2,19 +2,23 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Order;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
-import javax.persistence.Query;
-import javax.persistence.TypedQuery;
-import javax.swing.text.html.parser.Entity;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private final EntityManager em;
 
     public void save(Order order) {
@@ -25,48 +29,55 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
-    public List<Order> findall(OrderSearch orderSearch) {
-        return em.createQuery("select o from Order o join o.member" +
-                    "where o.status = :status" +
-                    "and m.name like :name", Order.class)
-                .setParameter("status", orderSearch.getOrderStatus())
-                .setParameter("name", orderSearch.getMemberName())
-                .setMaxResults(1000) //최대 1000건
+    public List<Order> findAllByString(OrderSearch orderSearch) {
+        return OrderQueryBuilder.from(orderSearch)
+                .build(em, 1000) //최대 1000건
                 .getResultList();
     }
 
-    public List<Order> findAllByString(OrderSearch orderSearch) {
-        //language=JPAQL
-        String jpql = "select o From Order o join o.member m";
-        boolean isFirstCondition = true;
-        //주문 상태 검색
-        if (orderSearch.getOrderStatus() != null) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " o.status = :status";
-        }
-        //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
+    /**
+     * 주문 검색 - member, delivery(ToOne)는 fetch join 으로 한번에 조회하고
+     * orderItems, item 은 default_batch_fetch_size 로 IN 쿼리 batch 조회
+     * -> 화면에서 연관 엔티티를 모두 접근해도 주문 수와 무관하게 쿼리 수가 일정
+     * memberIds: 회원 이름 색인에서 찾은 후보 회원 (null 이면 조건 없음)
+     */
+    public List<Order> findAllWithMemberDelivery(OrderSearch orderSearch, Collection<Long> memberIds) {
+        return OrderQueryBuilder.from(orderSearch)
+                .memberIds(memberIds)
+                .fetchMemberDelivery()
+                .build(em, 1000) //최대 1000건
+                .getResultList();
+    }
+
+    /**
+     * 주문 검색 - keyset(seek) 페이징
+     * order_id 내림차순으로 이전 페이지의 마지막 order_id(cursor) 보다 작은 주문만 조회
+     * -> offset 처럼 앞 페이지를 읽고 버리지 않으므로 몇번째 페이지든 PK 로 바로 찾아감
+     */
+    public List<Order> findAllByCursor(OrderSearch orderSearch, Collection<Long> memberIds, Long cursor, int limit) {
+        return OrderQueryBuilder.from(orderSearch)
+                .memberIds(memberIds)
+                .fetchMemberDelivery()
+                .cursor(cursor)
+                .build(em, limit)
+                .getResultList();
+    }
+
+    /**
+     * 주문 내보내기 - 전체를 List 로 올리지 않고 forward-only cursor 로 한 행씩 읽어서 넘긴다.
+     * DTO 로 조회하므로 영속성 컨텍스트에 entity 가 쌓이지 않아서 건수와 상관없이 메모리 일정
+     */
+    public void exportAll(OrderSearch orderSearch, Collection<Long> memberIds, Consumer<OrderExportRow> consumer) {
+        Query<?> query = OrderQueryBuilder.from(orderSearch)
+                .memberIds(memberIds)
+                .buildExport(em)
+                .setHint(QueryHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .unwrap(Query.class);
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((OrderExportRow) results.get(0));
             }
-            jpql += " m.name like :name";
-        }
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
-                .setMaxResults(1000); //최대 1000건
-        if (orderSearch.getOrderStatus() != null) {
-            query = query.setParameter("status", orderSearch.getOrderStatus());
-        }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
         }
-        return query.getResultList();
     }
 }
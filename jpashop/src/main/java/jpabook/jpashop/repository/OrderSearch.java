@@ -3,9 +3,26 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter @Setter
 public class OrderSearch {
     private String memberName; //[회원이름]
+    private MemberNameMatch memberNameMatch = MemberNameMatch.PREFIX; // 회원이름 앞부분 일치 / 포함
     private OrderStatus orderStatus; // 주문상태, [order, Cancel]
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom; // 주문일 [from, to]
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;
+
+    private Long itemId; // 주문상품
+    private Integer minPrice; // 주문가격 범위
+    private Integer maxPrice;
+
+    public enum MemberNameMatch {
+        PREFIX, CONTAINS
+    }
 }
@@ -0,0 +1,152 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.SalesPeriod;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 집계 테이블 (sales_rollup: 전체, item_sales_rollup: 상품별) - entity 없이 SQL 로 더하고 조회
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+
+    private static final String COUNTS = "order_count, units, revenue, cancel_count, cancel_units, cancel_revenue";
+    private static final String SUM_COUNTS = "sum(order_count), sum(units), sum(revenue), sum(cancel_count), sum(cancel_units), sum(cancel_revenue)";
+
+    private final EntityManager em;
+
+    /**
+     * 집계 행에 더하기 - 현재 트랜잭션의 connection 으로 update 를 batch 로 보내고 행이 없던 것만 insert
+     * 같은 행을 동시에 처음 insert 하면 한쪽은 savepoint 로 insert 만 되돌리고 update (주문 트랜잭션은 그대로)
+     */
+    public void add(SalesPeriod period, LocalDateTime bucket, int shard, SalesRollupRow total, List<SalesRollupRow> items) {
+        em.unwrap(Session.class).doWork(connection -> {
+            add(connection, "sales_rollup", period, bucket, shard, List.of(total));
+            add(connection, "item_sales_rollup", period, bucket, shard, items);
+        });
+    }
+
+    private void add(Connection connection, String table, SalesPeriod period, LocalDateTime bucket, int shard,
+                     List<SalesRollupRow> rows) throws SQLException {
+        boolean item = table.startsWith("item");
+        String update = "update " + table + " set order_count = order_count + ?, units = units + ?, revenue = revenue + ?," +
+                " cancel_count = cancel_count + ?, cancel_units = cancel_units + ?, cancel_revenue = cancel_revenue + ?" +
+                " where period = ? and bucket = ?" + (item ? " and item_id = ?" : "") + " and shard = ?";
+        String insert = "insert into " + table + " (period, bucket, " + (item ? "item_id, " : "") + "shard, " + COUNTS + ")" +
+                " values (?, ?, " + (item ? "?, " : "") + "?, ?, ?, ?, ?, ?, ?)";
+
+        List<SalesRollupRow> missing = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(update)) {
+            for (SalesRollupRow row : rows) {
+                bindUpdate(statement, row, period, bucket, shard, item);
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    missing.add(rows.get(i));
+                }
+            }
+        }
+        for (SalesRollupRow row : missing) {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(insert)) {
+                int index = 1;
+                statement.setString(index++, period.name());
+                statement.setTimestamp(index++, Timestamp.valueOf(bucket));
+                if (item) {
+                    statement.setLong(index++, row.getItemId());
+                }
+                statement.setInt(index++, shard);
+                bindCounts(statement, index, row);
+                statement.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                if (!"23505".equals(e.getSQLState())) { //unique violation 이 아니면
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                try (PreparedStatement statement = connection.prepareStatement(update)) {
+                    bindUpdate(statement, row, period, bucket, shard, item);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static void bindUpdate(PreparedStatement statement, SalesRollupRow row, SalesPeriod period,
+                                   LocalDateTime bucket, int shard, boolean item) throws SQLException {
+        int index = bindCounts(statement, 1, row);
+        statement.setString(index++, period.name());
+        statement.setTimestamp(index++, Timestamp.valueOf(bucket));
+        if (item) {
+            statement.setLong(index++, row.getItemId());
+        }
+        statement.setInt(index, shard);
+    }
+
+    private static int bindCounts(PreparedStatement statement, int index, SalesRollupRow row) throws SQLException {
+        statement.setLong(index++, row.getOrderCount());
+        statement.setLong(index++, row.getUnits());
+        statement.setLong(index++, row.getRevenue());
+        statement.setLong(index++, row.getCancelCount());
+        statement.setLong(index++, row.getCancelUnits());
+        statement.setLong(index++, row.getCancelRevenue());
+        return index;
+    }
+
+    /** 구간별 전체 합계 [from, to) - PK (period, bucket) 범위 */
+    public List<SalesRollupRow> findTotals(SalesPeriod period, LocalDateTime from, LocalDateTime to) {
+        Query query = em.createNativeQuery("select bucket, cast(null as bigint), " + SUM_COUNTS + " from sales_rollup" +
+                " where period = :period and bucket >= :from and bucket < :to" +
+                " group by bucket order by bucket");
+        return toRows(bind(query, period, from, to).getResultList());
+    }
+
+    /** 기간 [from, to) 동안 매출 상위 상품 */
+    public List<SalesRollupRow> findTopItems(SalesPeriod period, LocalDateTime from, LocalDateTime to, int limit) {
+        Query query = em.createNativeQuery("select cast(null as timestamp), item_id, " + SUM_COUNTS + " from item_sales_rollup" +
+                " where period = :period and bucket >= :from and bucket < :to" +
+                " group by item_id order by sum(revenue) - sum(cancel_revenue) desc, item_id");
+        return toRows(bind(query, period, from, to).setMaxResults(limit).getResultList());
+    }
+
+    /** 상품 한개의 구간별 합계 [from, to) - idx_item_sales_rollup_item */
+    public List<SalesRollupRow> findItemSeries(Long itemId, SalesPeriod period, LocalDateTime from, LocalDateTime to) {
+        Query query = em.createNativeQuery("select bucket, item_id, " + SUM_COUNTS + " from item_sales_rollup" +
+                " where item_id = :itemId and period = :period and bucket >= :from and bucket < :to" +
+                " group by bucket, item_id order by bucket");
+        return toRows(bind(query, period, from, to).setParameter("itemId", itemId).getResultList());
+    }
+
+    private static Query bind(Query query, SalesPeriod period, LocalDateTime from, LocalDateTime to) {
+        return query.setParameter("period", period.name())
+                .setParameter("from", Timestamp.valueOf(from))
+                .setParameter("to", Timestamp.valueOf(to));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<SalesRollupRow> toRows(List<?> results) {
+        return ((List<Object[]>) results).stream()
+                .map(row -> new SalesRollupRow(
+                        row[0] != null ? ((Timestamp) row[0]).toLocalDateTime() : null,
+                        row[1] != null ? ((Number) row[1]).longValue() : null,
+                        ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), ((Number) row[4]).longValue(),
+                        ((Number) row[5]).longValue(), ((Number) row[6]).longValue(), ((Number) row[7]).longValue()))
+                .collect(Collectors.toList());
+    }
+}
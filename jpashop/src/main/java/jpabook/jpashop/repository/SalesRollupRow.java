@@ -0,0 +1,36 @@
+package jpabook.jpashop.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 집계 한 행 - 구간(bucket) 또는 상품(itemId) 별 합계, 집계할 때 더할 값으로도 쓴다.
+ * 주문 수/수량/매출은 취소된 주문을 포함하고 취소분은 cancel* 에 따로 (순매출 = revenue - cancelRevenue)
+ */
+@Getter
+@AllArgsConstructor
+public class SalesRollupRow {
+
+    private LocalDateTime bucket;
+    private Long itemId;
+    private long orderCount;
+    private long units;
+    private long revenue;
+    private long cancelCount;
+    private long cancelUnits;
+    private long cancelRevenue;
+
+    public static SalesRollupRow ordered(Long itemId, long units, long revenue) {
+        return new SalesRollupRow(null, itemId, 1, units, revenue, 0, 0, 0);
+    }
+
+    public static SalesRollupRow cancelled(Long itemId, long units, long revenue) {
+        return new SalesRollupRow(null, itemId, 0, 0, 0, 1, units, revenue);
+    }
+
+    public long getNetRevenue() {
+        return revenue - cancelRevenue;
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.StockDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StockDeltaRepository {
+
+    private final EntityManager em;
+
+    public void save(StockDelta stockDelta) {
+        em.persist(stockDelta);
+    }
+
+//    반영 안된 기록을 오래된 순으로 limit 건
+    public List<StockDelta> findPending(int limit) {
+        return em.createQuery("select d from StockDelta d order by d.id", StockDelta.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public void deleteAll(List<Long> ids) {
+        em.createQuery("delete from StockDelta d where d.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+//    현재 재고 = item 에 반영된 재고 + 아직 반영 안된 변경분 (한 쿼리로 읽어야 flush 와 겹쳐도 일관됨)
+    public Long findAvailableStock(Long itemId) {
+        return em.createQuery("select i.stockQuantity + coalesce(" +
+                        "(select sum(d.quantity) from StockDelta d where d.itemId = i.id), 0)" +
+                        " from Item i where i.id = :id", Long.class)
+                .setParameter("id", itemId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+}
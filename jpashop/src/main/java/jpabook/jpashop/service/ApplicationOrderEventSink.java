@@ -0,0 +1,26 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 같은 서버 안의 @EventListener(OrderEvent) 로 전달
+ * 리스너는 relay 스레드에서 바로 실행되므로 오래 걸리는 일은 리스너에서 따로 비동기로
+ */
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class ApplicationOrderEventSink implements OrderEventSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void send(List<OrderEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,147 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 카테고리 트리 메모리 캐시
+ * 처음 쓸 때 전체 카테고리를 쿼리 한번으로 읽어 트리를 만들고, 카테고리가 추가되면(커밋 후) 버렸다가 다시 읽는다.
+ * 트리는 만든 뒤 바뀌지 않으므로(children / roots 도 읽기 전용) 읽을 때 락이 필요 없다.
+ * 읽는 중에 버려지면 읽은 트리는 이번 호출에만 쓰고 캐시하지 않는다. (generation 으로 확인)
+ * 다른 서버에서 추가한 카테고리는 이 서버가 다시 읽기 전까지 보이지 않는다.
+ */
+@Slf4j
+@Component
+public class CategoryHierarchy {
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Tree tree;
+
+    public CategoryHierarchy(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public Node node(Long id) {
+        return tree().nodes.get(id);
+    }
+
+    public List<Node> roots() {
+        return tree().roots;
+    }
+
+    /** 루트부터 자신까지 (breadcrumb) */
+    public List<Node> ancestors(Long id) {
+        List<Node> ancestors = new ArrayList<>();
+        Map<Long, Node> nodes = tree().nodes;
+        for (Node node = nodes.get(id); node != null; node = nodes.get(node.parentId)) {
+            ancestors.add(node);
+        }
+        Collections.reverse(ancestors);
+        return ancestors;
+    }
+
+    /** 카테고리가 추가/변경된 트랜잭션이 커밋되면 트리를 버린다. */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    /** 트리를 버린다 - 다음에 쓸 때 다시 읽는다. */
+    public void invalidate() {
+        generation.incrementAndGet();
+        tree = null;
+    }
+
+    private Tree tree() {
+        Tree current = tree;
+        if (current == null) {
+            synchronized (this) {
+                current = tree;
+                if (current == null) {
+                    long loading = generation.get();
+                    current = load();
+                    //읽는 동안 커밋된 변경이 있으면 이미 지난 트리일 수 있다
+                    if (generation.get() == loading) {
+                        tree = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private Tree load() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = transactionTemplate.execute(status -> categoryRepository.findAllNodes());
+        Map<Long, Node> nodes = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            Node node = new Node((Long) row[0], (String) row[1], (Long) row[2], (String) row[3]);
+            nodes.put(node.id, node);
+        }
+        List<Node> roots = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            Node parent = node.parentId != null ? nodes.get(node.parentId) : null;
+            if (parent != null) {
+                parent.children.add(node);
+            } else {
+                roots.add(node);
+            }
+        }
+        for (Node node : nodes.values()) {
+            node.children = List.copyOf(node.children);
+        }
+        log.info("category hierarchy loaded - {} categories in {} ms", nodes.size(), System.currentTimeMillis() - start);
+        return new Tree(nodes, List.copyOf(roots));
+    }
+
+    private static class Tree {
+        private final Map<Long, Node> nodes;
+        private final List<Node> roots;
+
+        Tree(Map<Long, Node> nodes, List<Node> roots) {
+            this.nodes = nodes;
+            this.roots = roots;
+        }
+    }
+
+    @Getter
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final String path;
+        private List<Node> children = new ArrayList<>(); //트리를 다 만들면 읽기 전용으로
+
+        Node(Long id, String name, Long parentId, String path) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final CategoryHierarchy categoryHierarchy;
+
+    /** 최상위 카테고리 */
+    @Transactional
+    public Long createRoot(String name) {
+        Category category = new Category();
+        category.setName(name);
+        categoryRepository.save(category);
+        categoryHierarchy.invalidateAfterCommit();
+        return category.getId();
+    }
+
+    /** 하위 카테고리 추가 */
+    @Transactional
+    public Long addChild(Long parentId, String name) {
+        Category parent = categoryRepository.findOne(parentId);
+        if (parent == null) {
+            throw new IllegalArgumentException("카테고리가 없습니다: " + parentId);
+        }
+        Category child = new Category();
+        child.setName(name);
+        parent.addChildCategory(child);
+        categoryRepository.save(child);
+        categoryHierarchy.invalidateAfterCommit();
+        return child.getId();
+    }
+
+    /** 카테고리에 상품 등록 */
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("카테고리가 없습니다: " + categoryId);
+        }
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("상품이 없습니다: " + itemId);
+        }
+        category.getItems().add(item);
+        item.getCategories().add(category);
+    }
+
+    /**
+     * 카테고리와 모든 하위 카테고리의 상품 - cursor(이전 페이지 마지막 상품 id) 이후 limit 건
+     * 경로는 캐시된 트리에서 찾으므로 상품 쿼리 한번
+     */
+    public List<Item> findItems(Long categoryId, Long cursor, int limit) {
+        CategoryHierarchy.Node node = categoryHierarchy.node(categoryId);
+        if (node == null) {
+            throw new IllegalArgumentException("카테고리가 없습니다: " + categoryId);
+        }
+        return categoryRepository.findItemsByPathPrefix(node.getPath(), cursor, limit);
+    }
+}
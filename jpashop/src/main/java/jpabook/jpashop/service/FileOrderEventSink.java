@@ -0,0 +1,82 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.OrderEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 이벤트를 파일에 한 줄씩 JSON 으로 추가 (jpashop.outbox.file-sink.path 가 있을 때만)
+ * 묶음마다 한번 디스크에 force - 돌려준 뒤에 outbox 에서 삭제되므로
+ */
+@Component
+@Order(2)
+@ConditionalOnExpression("!'${jpashop.outbox.file-sink.path:}'.isEmpty()")
+public class FileOrderEventSink implements OrderEventSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+
+    public FileOrderEventSink(@Value("${jpashop.outbox.file-sink.path}") String path, ObjectMapper objectMapper) {
+        this.path = Paths.get(path);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void send(List<OrderEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OrderEvent event : events) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("id", event.getId());
+            line.put("type", event.getType());
+            line.put("aggregateId", event.getAggregateId());
+            line.put("createdAt", event.getCreatedAt());
+            line.put("payload", objectMapper.readTree(event.getPayload()));
+            lines.append(objectMapper.writeValueAsString(line)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        FileChannel channel = channel();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    //파일이 옮겨지거나 지워졌으면 (log rotate) 새로 만든다
+    private FileChannel channel() throws IOException {
+        if (channel != null && !Files.exists(path)) {
+            close();
+        }
+        if (channel == null) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 상품 일괄 등록 결과
+ * 실패한 행은 건수는 모두 세고, 상세 내용은 앞에서부터 MAX_REJECTED_ROWS 개만 남긴다. (파일이 커져도 메모리 일정)
+ */
+@Getter
+public class ItemImportResult {
+
+    public static final int MAX_REJECTED_ROWS = 100;
+
+    private long total;
+    private long imported;
+    private long rejectedCount;
+    private final List<RejectedRow> rejected = new ArrayList<>();
+
+    void read() {
+        total++;
+    }
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void reject(long line, String reason) {
+        rejectedCount++;
+        if (rejected.size() < MAX_REJECTED_ROWS) {
+            rejected.add(new RejectedRow(line, reason));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RejectedRow {
+        private long line;
+        private String reason;
+    }
+}
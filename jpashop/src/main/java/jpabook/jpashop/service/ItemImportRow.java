@@ -0,0 +1,74 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.Data;
+
+/**
+ * 상품 일괄 등록 파일의 한 줄 (CSV 한 행 또는 JSON 객체 하나)
+ * type 은 BOOK/ALBUM/MOVIE 또는 dtype 값 B/A/M
+ */
+@Data
+public class ItemImportRow {
+
+    private String type;
+    private String name;
+    private Integer price;
+    private Integer stockQuantity;
+
+    private String author;
+    private String isbn;
+    private String artist;
+    private String etc;
+    private String director;
+    private String actor;
+
+    /**
+     * 타입에 맞는 상품 entity 로 변환, 값이 잘못되었으면 IllegalArgumentException
+     */
+    public Item toItem() {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (price == null || price < 0) {
+            throw new IllegalArgumentException("price must be zero or positive");
+        }
+        if (stockQuantity == null || stockQuantity < 0) {
+            throw new IllegalArgumentException("stockQuantity must be zero or positive");
+        }
+
+        Item item = createItem();
+        item.setName(name.trim());
+        item.setPrice(price);
+        item.setStockQuantity(stockQuantity);
+        return item;
+    }
+
+    private Item createItem() {
+        String itemType = type == null ? "" : type.trim().toUpperCase();
+        switch (itemType) {
+            case "B":
+            case "BOOK":
+                Book book = new Book();
+                book.setAuthor(author);
+                book.setIsbn(isbn);
+                return book;
+            case "A":
+            case "ALBUM":
+                Album album = new Album();
+                album.setArtist(artist);
+                album.setEtc(etc);
+                return album;
+            case "M":
+            case "MOVIE":
+                Movie movie = new Movie();
+                movie.setDirector(director);
+                movie.setActor(actor);
+                return movie;
+            default:
+                throw new IllegalArgumentException("unknown item type: " + type);
+        }
+    }
+}
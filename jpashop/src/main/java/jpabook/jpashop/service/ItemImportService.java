@@ -0,0 +1,247 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 상품 일괄 등록 (CSV / JSON)
+ * 파일을 한 행씩 읽어서 BATCH_SIZE 개씩 트랜잭션을 나눠 저장하고, 저장할 때마다 영속성 컨텍스트를 비운다.
+ * -> 파일 크기와 상관없이 메모리에는 배치 하나 분량만 올라간다.
+ * 값이 잘못된 행은 건너뛰고 결과에 남긴다. 이미 저장된 배치는 뒤에서 실패해도 롤백되지 않는다.
+ */
+@Slf4j
+@Service
+public class ItemImportService {
+
+    static final int BATCH_SIZE = 1000;
+
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * 파일 확장자 -> content type 순으로 형식 결정, 모르면 CSV
+         */
+        public static Format of(String filename, String contentType) {
+            if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json")) {
+                return JSON;
+            }
+            if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                return CSV;
+            }
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json")) {
+                return JSON;
+            }
+            return CSV;
+        }
+    }
+
+    private final ItemRepository itemRepository;
+    private final ObjectMapper objectMapper;
+    private final ItemSearchIndex itemSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public ItemImportService(ItemRepository itemRepository, ObjectMapper objectMapper, ItemSearchIndex itemSearchIndex,
+                             PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.objectMapper = objectMapper;
+        this.itemSearchIndex = itemSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ItemImportResult importItems(InputStream in, Format format) throws IOException {
+        Batch batch = new Batch();
+        if (format == Format.JSON) {
+            readJson(in, batch);
+        } else {
+            readCsv(in, batch);
+        }
+        batch.write();
+        itemSearchIndex.refresh();
+        ItemImportResult result = batch.result;
+        log.info("item import finished - total {}, imported {}, rejected {}",
+                result.getTotal(), result.getImported(), result.getRejectedCount());
+        return result;
+    }
+
+    /**
+     * 첫 줄은 헤더 (type,name,price,stockQuantity,author,isbn,artist,etc,director,actor 중 필요한 것만, 순서 무관)
+     */
+    private void readCsv(InputStream in, Batch batch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return;
+        }
+        List<String> header = parseCsvLine(headerLine.replace("\uFEFF", ""));
+
+        String line;
+        long lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(lineNumber, toRow(header, parseCsvLine(line)));
+            } catch (IllegalArgumentException e) {
+                batch.reject(lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 최상위가 상품 객체 배열인 JSON - 객체 하나씩 읽는다. 줄 번호 대신 배열 순번(1부터)을 남긴다.
+     * JSON 문법이 깨진 곳부터는 이어서 읽을 수 없으므로 그 항목을 거부하고 멈춘다. (앞의 항목은 그대로 등록)
+     */
+    private void readJson(InputStream in, Batch batch) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import must be an array of items");
+            }
+            long index = 1;
+            try {
+                for (; parser.nextToken() == JsonToken.START_OBJECT; index++) {
+                    JsonNode node = objectMapper.readTree(parser);
+                    try {
+                        batch.add(index, objectMapper.treeToValue(node, ItemImportRow.class));
+                    } catch (IllegalArgumentException | IOException e) {
+                        batch.reject(index, e.getMessage());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                batch.reject(index, "malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private ItemImportRow toRow(List<String> header, List<String> values) {
+        if (values.size() > header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " columns but got " + values.size());
+        }
+        ItemImportRow row = new ItemImportRow();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            switch (header.get(i).trim()) {
+                case "type": row.setType(value); break;
+                case "name": row.setName(value); break;
+                case "price": row.setPrice(toInteger("price", value)); break;
+                case "stockQuantity": row.setStockQuantity(toInteger("stockQuantity", value)); break;
+                case "author": row.setAuthor(value); break;
+                case "isbn": row.setIsbn(value); break;
+                case "artist": row.setArtist(value); break;
+                case "etc": row.setEtc(value); break;
+                case "director": row.setDirector(value); break;
+                case "actor": row.setActor(value); break;
+                default: break;
+            }
+        }
+        return row;
+    }
+
+    private Integer toInteger(String column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * CSV 한 줄 분리 - 큰따옴표로 감싼 값 안의 쉼표와 "" (따옴표 escape) 처리
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * BATCH_SIZE 개씩 모아서 트랜잭션 하나로 저장
+     */
+    private class Batch {
+
+        private final ItemImportResult result = new ItemImportResult();
+        private final List<Item> items = new ArrayList<>(BATCH_SIZE);
+        private final List<Long> lines = new ArrayList<>(BATCH_SIZE);
+
+        void add(long line, ItemImportRow row) {
+            Item item = row.toItem();
+            result.read();
+            items.add(item);
+            lines.add(line);
+            if (items.size() >= BATCH_SIZE) {
+                write();
+            }
+        }
+
+        void reject(long line, String reason) {
+            result.read();
+            result.reject(line, reason);
+        }
+
+        void write() {
+            if (items.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> itemRepository.saveAll(items));
+                result.imported(items.size());
+                itemSearchIndex.add(items);
+            } catch (RuntimeException e) {
+//                배치 전체가 롤백되었으므로 배치의 모든 행을 실패로 남긴다
+                log.warn("item import batch failed at line {}: {}", lines.get(0), e.getMessage());
+                lines.forEach(line -> result.reject(line, "batch failed: " + e.getMessage()));
+            }
+            items.clear();
+            lines.clear();
+            log.info("item import progress - read {}, imported {}, rejected {}",
+                    result.getTotal(), result.getImported(), result.getRejectedCount());
+        }
+    }
+}
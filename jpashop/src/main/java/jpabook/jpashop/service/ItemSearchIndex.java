@@ -0,0 +1,265 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 상품 전문 검색 색인 (lucene, 프로세스 안에서 디스크의 색인 파일을 쓴다)
+ * 상품명, 저자/ISBN(Book), 아티스트(Album), 감독/배우(Movie) 를 색인하고 관련도 순으로 상품 id 를 돌려준다.
+ * -> 상품 검색이 item 테이블을 like 로 읽지 않는다.
+ * 상품 저장/수정이 커밋된 뒤에 색인해서 바로 검색되고, 색인 파일은 commit-interval 마다 디스크에 commit 한다.
+ * 시작할 때 색인 문서 수가 상품 수와 다르면 DB 에서 다시 만든다. (commit 전에 죽어서 빠진 상품)
+ * 색인은 서버마다 따로라서 다른 서버에서 바꾼 상품은 재시작(재생성) 전까지 반영되지 않는다.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+
+    static final String ID = "id";
+    static final String NAME = "name";
+    static final String PEOPLE = "people"; // 저자, 아티스트, 감독, 배우
+    static final String ISBN = "isbn";
+
+    /** 상품명이 제일 중요하고 그 다음 사람 이름 */
+    private static final Map<String, Float> BOOSTS = Map.of(NAME, 3f, PEOPLE, 1f);
+    /** 이보다 깊은 페이지는 검색하지 않는다 (상위 hit 를 전부 모아서 잘라내므로) */
+    static final int MAX_HITS = 10000;
+
+    private final Directory directory;
+    private final Analyzer analyzer = new CJKAnalyzer(); //한글/한자는 bigram, 영문은 단어 + 소문자
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ItemSearchIndex(@Value("${jpashop.item.search.index-dir:}") String indexDir,
+                           ItemRepository itemRepository, PlatformTransactionManager transactionManager) throws IOException {
+        //경로가 없으면 메모리 (테스트)
+        this.directory = StringUtils.hasText(indexDir) ? FSDirectory.open(Paths.get(indexDir)) : new ByteBuffersDirectory();
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws IOException {
+        long items = transactionTemplate.execute(status -> itemRepository.count());
+        if (writer.getDocStats().numDocs != items) {
+            rebuild();
+        }
+    }
+
+    /** DB 의 전체 상품으로 색인을 다시 만든다. */
+    public void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        writer.deleteAll();
+        transactionTemplate.executeWithoutResult(status -> itemRepository.findAllScroll(item -> {
+            try {
+                writer.addDocument(toDocument(item));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        commit();
+        searcherManager.maybeRefresh();
+        log.info("item search index rebuilt - {} items in {} ms",
+                writer.getDocStats().numDocs, System.currentTimeMillis() - start);
+    }
+
+    /** 트랜잭션 안이면 커밋된 뒤에, 밖이면 바로 색인 (롤백되면 색인하지 않는다) */
+    public void indexAfterCommit(Item item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(Collections.singletonList(item));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index(Collections.singletonList(item));
+            }
+        });
+    }
+
+    /** 상품 색인 (같은 id 는 교체) - 색인 실패는 검색에만 영향이 있으므로 로그만 남긴다. */
+    public void index(Collection<? extends Item> items) {
+        try {
+            for (Item item : items) {
+                writer.updateDocument(new Term(ID, item.getId().toString()), toDocument(item));
+            }
+            //디스크 commit(fsync) 없이 바로 검색되도록
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("item search index update failed", e);
+        }
+    }
+
+    /**
+     * 새 상품 여러건 색인 (일괄 등록) - 같은 id 를 찾아 지우지 않고, 검색에는 refresh() 뒤에 보인다.
+     */
+    public void add(Collection<? extends Item> items) {
+        try {
+            for (Item item : items) {
+                writer.addDocument(toDocument(item));
+            }
+        } catch (IOException e) {
+            log.error("item search index add failed", e);
+        }
+    }
+
+    /** 지금까지 색인한 상품이 검색되도록 */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("item search index refresh failed", e);
+        }
+    }
+
+    /**
+     * 관련도 순 상품 id - page 는 0 부터
+     * 검색어의 단어가 모두 상품명/사람 이름에 있어야 하고, ISBN 은 - 를 빼고 정확히 일치
+     */
+    public Hits search(String text, int page, int size) throws IOException {
+        Query query = toQuery(text);
+        int start = (int) Math.min((long) page * size, MAX_HITS);
+        int end = (int) Math.min((long) (page + 1) * size, MAX_HITS);
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, Math.max(end, 1));
+            List<Long> ids = new ArrayList<>(size);
+            for (int i = start; i < Math.min(end, topDocs.scoreDocs.length); i++) {
+                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(ID)));
+            }
+            return new Hits(topDocs.totalHits.value, ids);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Query toQuery(String text) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{NAME, PEOPLE}, analyzer, BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        //한 단어에서 나온 bigram 들은 이어져 있어야 한다 (phrase)
+        parser.setSplitOnWhitespace(true);
+        parser.setAutoGeneratePhraseQueries(true);
+        try {
+            //사용자 입력은 lucene 문법으로 해석하지 않는다
+            query.add(parser.parse(QueryParser.escape(text)), BooleanClause.Occur.SHOULD);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("검색어를 해석할 수 없습니다: " + text, e);
+        }
+        String isbn = normalizeIsbn(text);
+        if (!isbn.isEmpty()) {
+            query.add(new BoostQuery(new TermQuery(new Term(ISBN, isbn)), 10f), BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+
+    private static Document toDocument(Item item) {
+        Document document = new Document();
+        document.add(new StringField(ID, item.getId().toString(), Field.Store.YES));
+        addText(document, NAME, item.getName());
+        if (item instanceof Book) {
+            Book book = (Book) item;
+            addText(document, PEOPLE, book.getAuthor());
+            if (book.getIsbn() != null) {
+                document.add(new StringField(ISBN, normalizeIsbn(book.getIsbn()), Field.Store.NO));
+            }
+        } else if (item instanceof Album) {
+            addText(document, PEOPLE, ((Album) item).getArtist());
+        } else if (item instanceof Movie) {
+            addText(document, PEOPLE, ((Movie) item).getDirector());
+            addText(document, PEOPLE, ((Movie) item).getActor());
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    //    978-89-6077-733-0 -> 9788960777330
+    private static String normalizeIsbn(String isbn) {
+        return isbn.replaceAll("[^0-9Xx]", "").toUpperCase();
+    }
+
+    /** 바뀐 색인을 디스크에 commit - 상품마다 fsync 하지 않도록 모아서 */
+    @Scheduled(fixedDelayString = "${jpashop.item.search.commit-interval:5000}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hits {
+        private final long total;
+        private final List<Long> ids;
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 상품 검색 결과 - items 는 관련도 순
+ */
+@Getter
+@AllArgsConstructor
+public class ItemSearchResult {
+
+    private final long totalHits;
+    private final int page;
+    private final int size;
+    private final List<Item> items;
+}
@@ -1,13 +1,22 @@
 package jpabook.jpashop.service;
 
+import io.micrometer.core.annotation.Timed;
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemSort;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -15,25 +24,64 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final ItemSearchIndex itemSearchIndex;
 
+    @Timed(value = "jpashop.item", extraTags = {"operation", "save"}, histogram = true)
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        itemSearchIndex.indexAfterCommit(item);
     }
 
+    @Timed(value = "jpashop.item", extraTags = {"operation", "update"}, histogram = true)
     @Transactional
     public void updateItem(Long itemId, String name, int price, int stockQuantity) {
         //DB안에있는 영속성 상태를 가져옴
         Item findItem = itemRepository.findOne(itemId);
         findItem.setName(name);
         findItem.setPrice(price);
-        findItem.setStockQuantity(stockQuantity);
+        stockService.updateStock(findItem, stockQuantity);
+        itemSearchIndex.indexAfterCommit(findItem);
     }
 
     public List<Item> findItems(){
         return itemRepository.findAll();
     }
 
+    /** 상품 목록 한 페이지 (page 는 0 부터) */
+    @QueryBudget(3)
+    @Timed(value = "jpashop.item", extraTags = {"operation", "list"}, histogram = true)
+    public PageResult<Item> findItems(ItemSort sort, int page, int size) {
+        long totalCount = itemRepository.countCached();
+        List<Item> items = itemRepository.findPage(sort, PageResult.offset(page, size), size);
+        return new PageResult<>(items, page, size, totalCount);
+    }
+
+    /**
+     * 상품 검색 - 검색 색인에서 관련도 순으로 id 를 찾고 상품은 IN 쿼리 한번 (2차 캐시)
+     */
+    @Timed(value = "jpashop.item", extraTags = {"operation", "search"}, histogram = true)
+    public ItemSearchResult searchItems(String query, int page, int size) {
+        ItemSearchIndex.Hits hits;
+        try {
+            hits = itemSearchIndex.search(query, page, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (hits.getIds().isEmpty()) {
+            return new ItemSearchResult(hits.getTotal(), page, size, List.of());
+        }
+        Map<Long, Item> items = itemRepository.findAll(hits.getIds()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        //색인 순서(관련도) 대로, 색인 뒤에 지워진 상품은 빼고
+        List<Item> result = hits.getIds().stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new ItemSearchResult(hits.getTotal(), page, size, result);
+    }
+
     public Item findOne(Long itemId) {
         return itemRepository.findOne(itemId);
     }
@@ -0,0 +1,103 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 bloom filter - 회원가입 중복 검사에서 "없는 이름" 이면 DB 를 조회하지 않는다.
+ * mightContain 이 false 면 이 서버가 아는 한 확실히 없는 이름, true 면 있을 수도 있으므로 DB 확인
+ * 다른 서버에서 가입한 이름은 모를 수 있지만 name unique 제약이 최종적으로 막아준다.
+ * 시작할 때 전체 이름을 한번 읽어서 채우고, 다 채우기 전에는 항상 true (DB 확인)
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final AtomicLongArray bits;
+    private final int bitSize;
+    private final int hashCount;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean ready;
+
+    public MemberNameFilter(@Value("${jpashop.member.name-filter.expected-insertions:1000000}") int expectedInsertions,
+                            MemberRepository memberRepository, PlatformTransactionManager transactionManager) {
+//        오탐률 1% 기준 - 이름 100만개에 약 1.2MB
+        double falsePositiveRate = 0.01;
+        long size = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitSize = (int) Math.min(Math.max(size, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((bitSize + 63) / 64);
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findAllNames(this::put));
+        ready = true;
+        log.info("member name filter loaded in {} ms", System.currentTimeMillis() - start);
+    }
+
+    public boolean mightContain(String name) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitSize;
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitSize;
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(index >>> 6);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(index >>> 6, current, current | mask));
+        }
+    }
+
+    //    FNV-1a 64bit + murmur3 finalizer
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
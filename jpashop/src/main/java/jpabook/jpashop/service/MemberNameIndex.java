@@ -0,0 +1,121 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 이름 bigram 색인 (jpashop.member.name-index.enabled=true 일 때만)
+ * 주문 검색의 회원이름 "포함" 검색은 DB 에서 like '%keyword%' 라 인덱스를 못 타고 member 전체를 읽는다.
+ * 이름을 두 글자씩 잘라 bigram -> 회원 id 로 들고 있다가 검색어의 bigram 교집합으로 후보 회원 id 를 먼저 찾고
+ * 주문 조회는 m.id in (후보) 로 PK 를 탄다.
+ * 후보는 이 서버가 아는 이름 기준이므로 주문 조회에서 이름 조건을 한번 더 확인한다. (다른 서버에서 바꾼 이름, 롤백된 변경)
+ * 메모리는 회원 100만명에 수백 MB 정도 들어가므로 회원 수에 맞게 켠다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.member.name-index.enabled", havingValue = "true")
+public class MemberNameIndex {
+
+    private static final int GRAM = 2;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+    private final int maxCandidates;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean ready;
+
+    public MemberNameIndex(@Value("${jpashop.member.name-index.max-candidates:1000}") int maxCandidates,
+                           MemberRepository memberRepository, PlatformTransactionManager transactionManager) {
+        this.maxCandidates = maxCandidates;
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findAllIdAndNames(this::put));
+        ready = true;
+        log.info("member name index loaded {} members, {} grams in {} ms",
+                names.size(), grams.size(), System.currentTimeMillis() - start);
+    }
+
+    /** 회원 이름 등록/변경 */
+    public void put(Long id, String name) {
+        String normalized = Member.normalizeName(name);
+        if (id == null || normalized == null) {
+            return;
+        }
+        String old = names.put(id, normalized);
+        if (normalized.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            for (String gram : grams(old)) {
+                grams.computeIfPresent(gram, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        for (String gram : grams(normalized)) {
+            grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * 이름에 keyword 가 들어간 회원 id
+     * 색인으로 좁힐 수 없으면 null - 로딩 전, 검색어가 한 글자, 후보가 max-candidates 보다 많을 때 (DB like 로 검색)
+     */
+    public Set<Long> findContaining(String keyword) {
+        String normalized = Member.normalizeName(keyword);
+        if (!ready || normalized == null || normalized.length() < GRAM) {
+            return null;
+        }
+        //가장 짧은 목록부터 교집합
+        List<Set<Long>> postings = grams(normalized).stream()
+                .map(gram -> grams.getOrDefault(gram, Set.of()))
+                .sorted(Comparator.comparingInt(Set::size))
+                .collect(Collectors.toList());
+        Set<Long> candidates = new HashSet<>();
+        for (Long id : postings.get(0)) {
+            if (postings.stream().allMatch(ids -> ids.contains(id))) {
+                //bigram 이 다 있어도 순서가 다를 수 있으므로 이름으로 확인
+                String name = names.get(id);
+                if (name != null && name.contains(normalized)) {
+                    candidates.add(id);
+                    if (candidates.size() > maxCandidates) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static Set<String> grams(String name) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            result.add(name.substring(i, i + GRAM));
+        }
+        return result;
+    }
+}
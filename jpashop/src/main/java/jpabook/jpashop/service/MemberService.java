@@ -1,11 +1,18 @@
 package jpabook.jpashop.service;
 
+import io.micrometer.core.annotation.Timed;
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberQueryDto;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.MemberSort;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -15,37 +22,91 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final ObjectProvider<MemberNameIndex> memberNameIndex; //jpashop.member.name-index.enabled=true 일 때만
 
     //    회원 가입
+    @QueryBudget(3)
+    @Timed(value = "jpashop.member", extraTags = {"operation", "join"}, histogram = true)
     @Transactional
     public Long join(Member member){
 
-        validateDuplicateMember(member);
-        memberRepository.save(member);
+        validateDuplicateMember(member.getName());
+        saveMember(member);
 //        키값이기 때문에 항상 값이 있다라는 것을 보장
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member) {
+    /**
+     * bloom filter 에 없는 이름이면 DB 조회 생략, 있을 수도 있으면 exists 쿼리로 확인
+     * 동시에 같은 이름으로 가입하면 둘 다 여기를 통과할 수 있으므로 name unique 제약이 최종 방어
+     */
+    private void validateDuplicateMember(String name) {
 //        Exception
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if(!findMembers.isEmpty()) {
+        if (memberNameFilter.mightContain(name) && memberRepository.existsByName(name)) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    private void saveMember(Member member) {
+        try {
+            memberRepository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        putNameAfterCommit(member.getId(), member.getName());
+    }
+
+    /** 이름 필터 / 색인은 커밋된 뒤에 (롤백된 이름이 색인에 남지 않도록) */
+    private void putNameAfterCommit(Long id, String name) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                memberNameFilter.put(name);
+                memberNameIndex.ifAvailable(index -> index.put(id, name));
+            }
+        });
+    }
+
 //    회원전체조회
     public List<Member> findMembers(){
         return memberRepository.findAll();
     }
 
+//    회원 목록 - cursor(이전 페이지 마지막 회원 id) 이후 limit 건
+    @QueryBudget(1)
+    public List<MemberQueryDto> findMembers(Long cursor, int limit) {
+        return memberRepository.findAllByCursor(cursor, limit);
+    }
+
+//    회원 목록 한 페이지 (page 는 0 부터)
+    @QueryBudget(3)
+    public PageResult<MemberQueryDto> findMembers(MemberSort sort, int page, int size) {
+        long totalCount = memberRepository.countCached();
+        List<MemberQueryDto> members = memberRepository.findPage(sort, PageResult.offset(page, size), size);
+        return new PageResult<>(members, page, size, totalCount);
+    }
+
     public Member findOne(Long memberId){
         return memberRepository.findOne(memberId);
     }
 
+    /** 이름 변경 - 없는 회원이면 IllegalArgumentException, 이미 있는 이름이면 IllegalStateException (가입과 같이) */
     @Transactional
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
-        member.setName(name);
+        if (member == null) {
+            throw new IllegalArgumentException("회원이 없습니다: " + id);
+        }
+        if (!member.getName().equals(name)) {
+            validateDuplicateMember(name);
+            member.setName(name);
+            try {
+                memberRepository.flush();
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+            }
+            putNameAfterCommit(id, name);
+        }
     }
 }
@@ -0,0 +1,92 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderEvent;
+import jpabook.jpashop.repository.OrderEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * outbox 의 주문 이벤트를 batch-size 개씩 id 순으로 읽어서 모든 sink 에 보내고 삭제
+ * sink 가 하나라도 실패하면 트랜잭션을 롤백해서 묶음 전체를 다음 주기에 다시 보낸다. (at-least-once)
+ * 보낸 이벤트를 삭제하므로 늦게 커밋된 작은 id 도 다음 주기에 읽힌다.
+ * 여러 서버에서 relay 를 돌리면 같은 이벤트를 서로 보내므로 한 서버에서만 켠다. (jpashop.outbox.relay.enabled)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderEventRelay {
+
+    private final List<OrderEventSink> sinks;
+    private final OrderEventRepository orderEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    public OrderEventRelay(List<OrderEventSink> sinks, OrderEventRepository orderEventRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${jpashop.outbox.relay.batch-size:500}") int batchSize) {
+        this.sinks = sinks;
+        this.orderEventRepository = orderEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /** 쌓인 이벤트를 모두 보낸다. 보낸 개수 (실패하면 거기서 멈추고 다음 주기에 재시도) */
+    @Scheduled(fixedDelayString = "${jpashop.outbox.relay.poll-interval:1000}")
+    public synchronized int relay() {
+        long start = System.nanoTime();
+        int total = 0;
+        int sent;
+        try {
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+                total += sent;
+            } while (sent == batchSize);
+        } catch (RuntimeException e) {
+            failureCount.incrementAndGet();
+            log.warn("order event relay failed after {} events, will retry: {}", total, e.toString());
+        }
+        if (total > 0) {
+            long millis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+            log.debug("order event relay sent {} events in {} ms ({} events/s)", total, millis, total * 1000 / millis);
+        }
+        return total;
+    }
+
+    private int relayBatch() {
+        List<OrderEvent> events = orderEventRepository.findPending(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        for (OrderEventSink sink : sinks) {
+            try {
+                sink.send(events);
+            } catch (Exception e) {
+                throw new IllegalStateException("order event sink failed: " + sink.getClass().getSimpleName(), e);
+            }
+        }
+        orderEventRepository.deleteAll(events.stream().map(OrderEvent::getId).collect(Collectors.toList()));
+        sentCount.addAndGet(events.size());
+        return events.size();
+    }
+
+    /** 지금까지 보낸 이벤트 수 */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /** 실패한 relay 횟수 */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+}
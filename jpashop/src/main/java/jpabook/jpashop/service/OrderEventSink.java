@@ -0,0 +1,14 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderEvent;
+
+import java.util.List;
+
+/**
+ * 주문 이벤트를 받는 곳 (OrderEventRelay 가 id 순으로 묶어서 전달)
+ * 예외를 던지면 묶음 전체를 나중에 다시 보낸다. (at-least-once - 같은 이벤트가 두번 올 수 있음)
+ */
+public interface OrderEventSink {
+
+    void send(List<OrderEvent> events) throws Exception;
+}
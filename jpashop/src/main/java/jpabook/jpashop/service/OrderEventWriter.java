@@ -0,0 +1,79 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderEvent;
+import jpabook.jpashop.domain.OrderEventType;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 주문/취소 트랜잭션 안에서 outbox 에 이벤트 저장
+ * 주문 1건 = 주문 이벤트 1개 + 상품별 재고 변경 이벤트 (insert 는 JDBC batch 로 한번에)
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventWriter {
+
+    private final OrderEventRepository orderEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public void ordered(Order order) {
+        save(OrderEventType.ORDER_PLACED, order.getId(), orderPayload(order));
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockChanged(order, orderItem, -orderItem.getCount());
+        }
+    }
+
+    public void cancelled(Order order) {
+        save(OrderEventType.ORDER_CANCELLED, order.getId(), orderPayload(order));
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockChanged(order, orderItem, orderItem.getCount());
+        }
+    }
+
+    //재고 변경 - 현재 재고가 아니라 변경량 (메모리 재고 장부를 쓰면 item 테이블 재고는 나중에 반영되므로)
+    private void stockChanged(Order order, OrderItem orderItem, int quantity) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("itemId", orderItem.getItem().getId());
+        payload.put("quantity", quantity);
+        payload.put("orderId", order.getId());
+        save(OrderEventType.STOCK_CHANGED, orderItem.getItem().getId(), payload);
+    }
+
+    private Map<String, Object> orderPayload(Order order) {
+        List<Map<String, Object>> items = order.getOrderItems().stream()
+                .map(orderItem -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("itemId", orderItem.getItem().getId());
+                    item.put("orderPrice", orderItem.getOrderPrice());
+                    item.put("count", orderItem.getCount());
+                    return item;
+                })
+                .collect(Collectors.toList());
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("memberId", order.getMember().getId());
+        payload.put("orderDate", order.getOrderDate());
+        payload.put("status", order.getStatus());
+        payload.put("totalPrice", order.getTotalPrice());
+        payload.put("orderItems", items);
+        return payload;
+    }
+
+    private void save(OrderEventType type, Long aggregateId, Map<String, Object> payload) {
+        try {
+            orderEventRepository.save(OrderEvent.create(type, aggregateId, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("주문 이벤트를 만들 수 없습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 주문/취소 재시도
+ * 낙관적 락 충돌(@Version), 락 대기 타임아웃 같은 동시성 예외는 새 트랜잭션으로 다시 하면 성공하므로
+ * 트랜잭션 밖(OrderService 바깥)에서 제한된 횟수만큼 재시도한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderFacade {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_MILLIS = 20;
+
+    private final OrderService orderService;
+
+    public Long order(Long memberId, Long itemId, int count) {
+        return retry(() -> orderService.order(memberId, itemId, count));
+    }
+
+    public Long order(Long memberId, Map<Long, Integer> itemCounts) {
+        return retry(() -> orderService.order(memberId, itemCounts));
+    }
+
+    public void cancelOrder(Long orderId) {
+        retry(() -> {
+            orderService.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    private <T> T retry(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("concurrency failure, retry {}/{}: {}", attempt, MAX_ATTEMPTS, e.getMessage());
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, ConcurrencyFailureException e) {
+        try {
+            Thread.sleep(BACKOFF_MILLIS * attempt);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.OrderQueueFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 주문 큐 (jpashop.order.async.enabled=true 일 때만)
+ * 요청 스레드는 주문을 검증해서 크기가 정해진 큐에 넣고 접수표(OrderTicket)만 돌려준다. 큐가 차면 바로 거절 (backpressure)
+ * worker 는 큐에서 batch-size 만큼 꺼내 트랜잭션 하나로 주문하고, 하나라도 실패하면 배치를 롤백하고 한건씩 다시 처리한다.
+ * 큐는 worker 마다 따로 있고 첫 상품 id 로 나눈다. 상품 하나짜리 주문은 같은 상품이면 한 worker 가 처리하므로 worker 끼리 row lock 을 기다리지 않는다.
+ * 여러 상품 주문은 나머지 상품이 다른 worker 의 상품일 수 있어서 배치끼리 lock 을 기다리거나 데드락이 날 수 있다.
+ * 그때는 DB 가 한쪽 배치를 실패시키고, 그 배치는 롤백 후 한건씩 다시 처리되므로 (OrderFacade 재시도) 주문은 유실되지 않는다.
+ * 큐와 접수표는 서버 메모리에 있으므로 서버가 죽으면 처리 전 주문은 사라지고, 접수표 조회는 접수한 서버로 해야 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order.async.enabled", havingValue = "true")
+public class OrderQueue {
+
+    private final List<BlockingQueue<Request>> queues = new ArrayList<>();
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long ticketTtlMillis;
+    private final OrderService orderService;
+    private final OrderFacade orderFacade;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private volatile boolean running = true;
+
+    public OrderQueue(@Value("${jpashop.order.async.queue-capacity:10000}") int capacity,
+                      @Value("${jpashop.order.async.workers:4}") int workers,
+                      @Value("${jpashop.order.async.batch-size:50}") int batchSize,
+                      @Value("${jpashop.order.async.ticket-ttl:600000}") long ticketTtlMillis,
+                      OrderService orderService, OrderFacade orderFacade, PlatformTransactionManager transactionManager) {
+        for (int i = 0; i < workers; i++) {
+            queues.add(new ArrayBlockingQueue<>(Math.max(capacity / workers, 1)));
+        }
+        this.batchSize = batchSize;
+        this.ticketTtlMillis = ticketTtlMillis;
+        this.orderService = orderService;
+        this.orderFacade = orderFacade;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(workers, 1), runnable -> {
+            Thread thread = new Thread(runnable, "order-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        for (BlockingQueue<Request> queue : queues) {
+            executor.execute(() -> work(queue));
+        }
+    }
+
+    /**
+     * 주문 접수 - itemCounts: 상품 id -> 수량
+     * 값이 잘못되면 IllegalArgumentException, 큐가 차 있으면 OrderQueueFullException (둘 다 큐에 넣지 않음)
+     */
+    public OrderTicket submit(Long memberId, Map<Long, Integer> itemCounts) {
+        if (!running) {
+            throw new OrderQueueFullException("주문 큐가 종료되었습니다.");
+        }
+        if (memberId == null || itemCounts == null || itemCounts.isEmpty()) {
+            throw new IllegalArgumentException("주문 회원과 상품이 필요합니다.");
+        }
+        itemCounts.forEach((itemId, count) -> {
+            if (itemId == null || count == null || count <= 0) {
+                throw new IllegalArgumentException("주문 수량이 잘못되었습니다: " + itemId + "=" + count);
+            }
+        });
+        Request request = new Request(memberId, new TreeMap<>(itemCounts));
+        if (!queues.get(Math.floorMod(request.itemCounts.firstKey(), queues.size())).offer(request)) {
+            throw new OrderQueueFullException("주문이 많아 잠시 후 다시 시도해 주세요.");
+        }
+        tickets.put(request.ticket.getId(), request.ticket);
+        return request.ticket;
+    }
+
+    public OrderTicket findTicket(String ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    /** 처리를 기다리는 주문 수 */
+    public int size() {
+        return queues.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    private void work(BlockingQueue<Request> queue) {
+        List<Request> batch = new ArrayList<>(batchSize);
+        //종료 중에도 큐에 남은 주문은 처리
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("order worker failed", e);
+                batch.forEach(request -> request.ticket.fail(message(e)));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Request> batch) {
+        List<Long> orderIds;
+        try {
+            orderIds = transactionTemplate.execute(status -> {
+                List<Long> ids = new ArrayList<>(batch.size());
+                for (Request request : batch) {
+                    ids.add(orderService.order(request.memberId, request.itemCounts));
+                }
+                return ids;
+            });
+        } catch (RuntimeException e) {
+            //배치 전체가 롤백되었으므로 한건씩 각자 트랜잭션으로 (동시성 예외는 재시도)
+            log.debug("order batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::processOne);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).ticket.complete(orderIds.get(i));
+        }
+    }
+
+    private void processOne(Request request) {
+        try {
+            request.ticket.complete(orderFacade.order(request.memberId, request.itemCounts));
+        } catch (RuntimeException e) {
+            request.ticket.fail(message(e));
+        }
+    }
+
+    private static String message(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /** 끝난 지 ticket-ttl 이 지난 접수표 정리 */
+    @Scheduled(fixedDelayString = "${jpashop.order.async.ticket-ttl:600000}")
+    public void removeExpiredTickets() {
+        LocalDateTime expired = LocalDateTime.now().minusNanos(ticketTtlMillis * 1_000_000);
+        tickets.values().removeIf(ticket -> ticket.isFinished() && ticket.getFinishedAt().isBefore(expired));
+    }
+
+    /** 새 주문은 받지 않고 큐에 남은 주문을 처리한 뒤 종료 */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("order queue stopped with {} orders left", size());
+            executor.shutdownNow();
+        }
+    }
+
+    private static class Request {
+        private final Long memberId;
+        private final TreeMap<Long, Integer> itemCounts;
+        private final OrderTicket ticket = new OrderTicket();
+
+        Request(Long memberId, TreeMap<Long, Integer> itemCounts) {
+            this.memberId = memberId;
+            this.itemCounts = itemCounts;
+        }
+    }
+}
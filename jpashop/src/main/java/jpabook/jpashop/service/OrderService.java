@@ -1,17 +1,28 @@
 package jpabook.jpashop.service;
+import io.micrometer.core.annotation.Timed;
+import jpabook.jpashop.QueryBudget;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderExportRow;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.TypedQuery;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -20,37 +31,115 @@ public class OrderService {
     private final MemberRepository memberRepository;
     private final OrderRepository orderRepository;
     private final ItemRepository itemRepository;
-    /** 주문 */
+    private final StockService stockService;
+    private final SalesRollupService salesRollupService;
+    private final OrderEventWriter orderEventWriter;
+    private final ObjectProvider<MemberNameIndex> memberNameIndex; //jpashop.member.name-index.enabled=true 일 때만
+    /** 주문 - SQL 은 재고 1, 조회 2, insert batch, 집계 기간별, 시퀀스 (상품 수가 늘면 재고/집계만큼 늘어남) */
+    @QueryBudget(20)
+    @Timed(value = "jpashop.order", extraTags = {"operation", "place"}, histogram = true)
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
-        //엔티티 조회
+        return order(memberId, Collections.singletonMap(itemId, count));
+    }
+
+    /** 여러 상품 주문 - itemCounts: 상품 id -> 수량, 없는 회원/상품이면 IllegalArgumentException */
+    @Timed(value = "jpashop.order", extraTags = {"operation", "place"}, histogram = true)
+    @Transactional
+    public Long order(Long memberId, Map<Long, Integer> itemCounts) {
+        if (itemCounts.isEmpty()) {
+            throw new IllegalArgumentException("주문할 상품이 없습니다.");
+        }
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
+        if (member == null) {
+            throw new IllegalArgumentException("회원이 없습니다: " + memberId);
+        }
+        //재고 차감 (재고가 부족하면 여기서 바로 실패, 없는 상품이면 StockService 가 IllegalArgumentException)
+        //동시에 같은 상품들을 주문해도 데드락이 나지 않도록 항상 상품 id 순서로 row lock
+        SortedMap<Long, Integer> sortedCounts = new TreeMap<>(itemCounts);
+        sortedCounts.forEach(stockService::removeStock);
+        //상품 조회 (IN 쿼리 한번)
+        Map<Long, Item> items = itemRepository.findAll(sortedCounts.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
         //배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
         delivery.setStatus(DeliveryStatus.READY);
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(),
-                count);
+        OrderItem[] orderItems = sortedCounts.entrySet().stream()
+                .map(e -> {
+                    Item item = items.get(e.getKey());
+                    return OrderItem.createOrderItem(item, item.getPrice(), e.getValue());
+                })
+                .toArray(OrderItem[]::new);
         //주문 생성
-        Order order = Order.createOrder(member, delivery, orderItem);
-        //주문 저장
+        Order order = Order.createOrder(member, delivery, orderItems);
+        //주문 저장 (주문상품, 배송정보는 cascade 로 batch insert)
         orderRepository.save(order);
+        //주문 집계
+        salesRollupService.ordered(order);
+        //주문 이벤트 (outbox)
+        orderEventWriter.ordered(order);
         return order.getId();
     }
     /** 주문 취소 */
+    @Timed(value = "jpashop.order", extraTags = {"operation", "cancel"}, histogram = true)
     @Transactional
     public void cancelOrder(Long orderId) {
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
         //주문 취소
         order.cancel();
+        //재고 원복
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockService.addStock(orderItem.getItem().getId(), orderItem.getCount());
+        }
+        //취소 집계 (주문과 같이 재고 다음에 집계 행 lock)
+        salesRollupService.cancelled(order);
+        //취소 이벤트 (outbox)
+        orderEventWriter.cancelled(order);
     }
     /** 주문 검색 */
 
+   @QueryBudget(2)
    public List<Order> findOrders(OrderSearch orderSearch) {
-       return orderRepository.findAllByString(orderSearch);
+       Set<Long> memberIds = resolveMembers(orderSearch);
+       if (memberIds != null && memberIds.isEmpty()) {
+           return Collections.emptyList();
+       }
+       return orderRepository.findAllWithMemberDelivery(orderSearch, memberIds);
+   }
+
+   /** 주문 검색 - cursor(이전 페이지 마지막 주문 id) 이후 limit 건 */
+   @QueryBudget(2)
+   public List<Order> findOrders(OrderSearch orderSearch, Long cursor, int limit) {
+       Set<Long> memberIds = resolveMembers(orderSearch);
+       if (memberIds != null && memberIds.isEmpty()) {
+           return Collections.emptyList();
+       }
+       return orderRepository.findAllByCursor(orderSearch, memberIds, cursor, limit);
+   }
+
+   /** 주문 내보내기 - 검색된 주문상품을 한 행씩 consumer 로 (트랜잭션 안에서 cursor 를 끝까지 읽는다) */
+   public void exportOrders(OrderSearch orderSearch, Consumer<OrderExportRow> consumer) {
+       Set<Long> memberIds = resolveMembers(orderSearch);
+       if (memberIds == null || !memberIds.isEmpty()) {
+           orderRepository.exportAll(orderSearch, memberIds, consumer);
+       }
+   }
+
+   /**
+    * 회원이름 포함 검색이면 회원 이름 색인에서 후보 회원 id 를 먼저 찾는다.
+    * null 이면 좁히지 않음 (색인이 없거나 좁힐 수 없으면 DB like 검색 그대로), 비어 있으면 주문을 조회할 필요 없음
+    * OrderSearch 는 요청 파라미터로 바인딩되므로 후보 id 는 따로 넘긴다. (요청에서 회원 id 를 지정할 수 없도록)
+    */
+   private Set<Long> resolveMembers(OrderSearch orderSearch) {
+       if (orderSearch.getMemberNameMatch() != OrderSearch.MemberNameMatch.CONTAINS
+               || !StringUtils.hasText(orderSearch.getMemberName())) {
+           return null;
+       }
+       MemberNameIndex index = memberNameIndex.getIfAvailable();
+       return index != null ? index.findContaining(orderSearch.getMemberName()) : null;
    }
 
 }
@@ -0,0 +1,43 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 비동기 주문 접수표 - 큐에 넣을 때 발급하고 worker 가 처리하면 결과(주문 id 또는 실패 사유)를 채운다.
+ */
+@Getter
+public class OrderTicket {
+
+    public enum Status {
+        QUEUED, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Long orderId;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+
+    void complete(Long orderId) {
+        this.orderId = orderId;
+        finish(Status.COMPLETED);
+    }
+
+    void fail(String message) {
+        this.message = message;
+        finish(Status.FAILED);
+    }
+
+    public boolean isFinished() {
+        return status != Status.QUEUED;
+    }
+
+    private void finish(Status status) {
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+}
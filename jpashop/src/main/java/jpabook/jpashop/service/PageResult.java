@@ -0,0 +1,52 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 목록 한 페이지 - page 는 0 부터
+ */
+@Getter
+@AllArgsConstructor
+public class PageResult<T> {
+
+    private static final int NAVIGATION_SIZE = 10;
+
+    private final List<T> content;
+    private final int page;
+    private final int size;
+    private final long totalCount;
+
+    /** 첫 행 위치 (page * size) - int 를 넘는 페이지면 IllegalArgumentException */
+    public static int offset(int page, int size) {
+        try {
+            return Math.multiplyExact(page, size);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("page 가 너무 큽니다: " + page, e);
+        }
+    }
+
+    public int getTotalPages() {
+        return (int) ((totalCount + size - 1) / size);
+    }
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+
+    public boolean hasNext() {
+        return page + 1 < getTotalPages();
+    }
+
+    /** 페이지 이동 링크에 보여줄 페이지 번호 - 현재 페이지가 가운데 오도록 최대 10개 */
+    public List<Integer> getNavigation() {
+        int totalPages = getTotalPages();
+        int start = Math.max(0, Math.min(page - NAVIGATION_SIZE / 2, totalPages - NAVIGATION_SIZE));
+        int end = Math.min(totalPages, start + NAVIGATION_SIZE);
+        return IntStream.range(start, end).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.SalesPeriod;
+import jpabook.jpashop.repository.SalesRollupRepository;
+import jpabook.jpashop.repository.SalesRollupRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 집계 - 주문/취소 트랜잭션 안에서 시간/일 단위 집계를 바로 더해두고 리포트는 집계 테이블만 읽는다.
+ * -> 리포트가 orders, order_item 을 읽지 않는다.
+ * 취소도 주문한 시간대에 집계한다. (그 시간대 주문 중 얼마가 취소되었는지)
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    /** 같은 시간대 집계 행을 나눠서 동시 주문끼리 row lock 을 덜 기다리도록 */
+    static final int SHARDS = 8;
+
+    /**
+     * shard 는 스레드마다 하나로 고정 - 주문 큐 worker 는 주문 여러건을 트랜잭션 하나로 처리하는데
+     * 주문마다 shard 를 따로 고르면 배치끼리 shard 행을 다른 순서로 잡아서 데드락이 난다.
+     */
+    private static final AtomicInteger NEXT_SHARD = new AtomicInteger();
+    private static final ThreadLocal<Integer> THREAD_SHARD = ThreadLocal.withInitial(
+            () -> Math.floorMod(NEXT_SHARD.getAndIncrement(), SHARDS));
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    @Transactional
+    public void ordered(Order order) {
+        add(order, false);
+    }
+
+    @Transactional
+    public void cancelled(Order order) {
+        add(order, true);
+    }
+
+    private void add(Order order, boolean cancel) {
+        //상품 id 순서로 (주문끼리 같은 순서로 row lock)
+        List<SalesRollupRow> items = order.getOrderItems().stream()
+                .sorted(Comparator.comparing(orderItem -> orderItem.getItem().getId()))
+                .map(orderItem -> row(orderItem.getItem().getId(), orderItem.getCount(), revenue(orderItem), cancel))
+                .collect(Collectors.toList());
+        long units = items.stream().mapToLong(cancel ? SalesRollupRow::getCancelUnits : SalesRollupRow::getUnits).sum();
+        long revenue = items.stream().mapToLong(cancel ? SalesRollupRow::getCancelRevenue : SalesRollupRow::getRevenue).sum();
+        SalesRollupRow total = row(null, units, revenue, cancel);
+        for (SalesPeriod period : SalesPeriod.values()) {
+            salesRollupRepository.add(period, period.truncate(order.getOrderDate()), THREAD_SHARD.get(), total, items);
+        }
+    }
+
+    private static SalesRollupRow row(Long itemId, long units, long revenue, boolean cancel) {
+        return cancel ? SalesRollupRow.cancelled(itemId, units, revenue) : SalesRollupRow.ordered(itemId, units, revenue);
+    }
+
+    private static long revenue(OrderItem orderItem) {
+        return (long) orderItem.getOrderPrice() * orderItem.getCount();
+    }
+
+    /** 구간별 전체 합계 [from, to) */
+    public List<SalesRollupRow> findTotals(SalesPeriod period, LocalDateTime from, LocalDateTime to) {
+        return salesRollupRepository.findTotals(period, period.truncate(from), to);
+    }
+
+    /** 기간 [from, to) 순매출 상위 상품 */
+    public List<SalesRollupRow> findTopItems(SalesPeriod period, LocalDateTime from, LocalDateTime to, int limit) {
+        return salesRollupRepository.findTopItems(period, period.truncate(from), to, limit);
+    }
+
+    /** 상품 한개의 구간별 합계 [from, to) */
+    public List<SalesRollupRow> findItemSeries(Long itemId, SalesPeriod period, LocalDateTime from, LocalDateTime to) {
+        return salesRollupRepository.findItemSeries(itemId, period, period.truncate(from), to);
+    }
+}
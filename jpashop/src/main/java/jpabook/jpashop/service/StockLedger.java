@@ -0,0 +1,188 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.StockDelta;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockDeltaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 메모리 재고 장부 (jpashop.stock.ledger.enabled=true 일 때만)
+ * 한정 판매처럼 한 상품에 주문이 몰릴 때 item row 를 매번 update 하지 않고
+ * 상품별 AtomicLong 을 CAS 로 차감해서 주문을 받거나 거절한다.
+ * 변경분은 주문과 같은 트랜잭션에 StockDelta 로 남기고, 주기적으로 모아서 item 테이블에 반영한다.
+ * 서버가 죽어도 StockDelta 가 주문과 함께 커밋되어 있으므로 재시작 시 그대로 반영하면 된다.
+ * 장부는 서버 메모리에 있으므로 주문을 받는 서버가 하나일 때만 사용
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.stock.ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final ConcurrentHashMap<Long, AtomicLong> available = new ConcurrentHashMap<>();
+    private final ItemRepository itemRepository;
+    private final StockDeltaRepository stockDeltaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public StockLedger(ItemRepository itemRepository, StockDeltaRepository stockDeltaRepository,
+                       PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.stockDeltaRepository = stockDeltaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 재고 차감 - 부족하면 DB 를 거치지 않고 바로 NotEnoughStockException
+     * 트랜잭션이 롤백되면 차감한 재고를 되돌린다.
+     */
+    public void reserve(Long itemId, int quantity) {
+        AtomicLong stock = stock(itemId);
+        long current;
+        do {
+            current = stock.get();
+            if (current < quantity) {
+                throw new NotEnoughStockException("need more stock");
+            }
+        } while (!stock.compareAndSet(current, current - quantity));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stock.addAndGet(quantity);
+                }
+            }
+        });
+        stockDeltaRepository.save(StockDelta.create(itemId, -quantity));
+    }
+
+    /**
+     * 재고 원복 - 커밋된 뒤에 장부에 더한다. (롤백될 취소분을 먼저 팔지 않도록)
+     * 변경분을 남기기 전에 장부에 올린다. (나중에 같은 트랜잭션에서 처음 읽으면 이번 원복분이 시작값에도 들어가므로)
+     */
+    public void release(Long itemId, int quantity) {
+        AtomicLong stock = stock(itemId);
+        stockDeltaRepository.save(StockDelta.create(itemId, quantity));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stock.addAndGet(quantity);
+            }
+        });
+    }
+
+    /**
+     * 관리자가 재고를 직접 수정한 경우 - (수정값 - 지금 남은 재고) 를 변경분으로 남긴다.
+     * item 재고를 덮어쓰면 차감됐지만 아직 커밋 안 된 주문분과 반영 안 된 변경분이 사라지거나 두번 반영되므로
+     * 줄이는 경우는 바로 장부에서 빼고 (그 사이 주문이 팔지 않도록) 롤백되면 되돌린다. 늘리는 경우는 커밋된 뒤 더한다.
+     */
+    public void adjust(Long itemId, int stockQuantity) {
+        AtomicLong stock = stock(itemId);
+        long delta;
+        do {
+            long current = stock.get();
+            delta = stockQuantity - current;
+            if (delta >= 0 || stock.compareAndSet(current, stockQuantity)) {
+                break;
+            }
+        } while (true);
+        if (delta == 0) {
+            return;
+        }
+
+        long quantity = delta;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (quantity > 0 && status == STATUS_COMMITTED) {
+                    stock.addAndGet(quantity);
+                } else if (quantity < 0 && status != STATUS_COMMITTED) {
+                    stock.addAndGet(-quantity);
+                }
+            }
+        });
+        stockDeltaRepository.save(StockDelta.create(itemId, (int) delta));
+    }
+
+    public long getAvailable(Long itemId) {
+        return stock(itemId).get();
+    }
+
+    /**
+     * 처음 쓰는 상품이면 DB 에서 읽어서 장부에 올린다.
+     * computeIfAbsent 안에서 읽으면 조회하는 동안 map 의 bin lock 을 잡고 있게 되므로 밖에서 읽고 putIfAbsent
+     * 조회는 호출한 트랜잭션에서 (connection 을 하나 더 잡지 않도록, 같은 트랜잭션에서 등록한 상품도 보이도록)
+     * 변경분은 항상 장부에 올린 뒤에 남기므로 커밋 전 변경분이 시작값에 섞이지 않는다.
+     * 동시에 처음 읽으면 먼저 올린 쪽을 쓴다. (둘 다 같은 값)
+     */
+    private AtomicLong stock(Long itemId) {
+        AtomicLong stock = available.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+        Long loaded = transactionTemplate.execute(status -> stockDeltaRepository.findAvailableStock(itemId));
+        if (loaded == null) {
+            throw new IllegalArgumentException("상품이 존재하지 않습니다. id=" + itemId);
+        }
+        stock = new AtomicLong(loaded);
+        AtomicLong previous = available.putIfAbsent(itemId, stock);
+        return previous != null ? previous : stock;
+    }
+
+    /**
+     * 쌓인 변경분을 상품별로 합쳐서 item 테이블에 반영 (상품당 update 1번)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.ledger.flush-interval:1000}")
+    public void flush() {
+        int flushed;
+        do {
+            flushed = transactionTemplate.execute(status -> flushBatch());
+        } while (flushed == FLUSH_BATCH_SIZE);
+    }
+
+    private int flushBatch() {
+        List<StockDelta> deltas = stockDeltaRepository.findPending(FLUSH_BATCH_SIZE);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Integer> netDeltas = new HashMap<>();
+        for (StockDelta delta : deltas) {
+            netDeltas.merge(delta.getItemId(), delta.getQuantity(), Integer::sum);
+        }
+        netDeltas.forEach((itemId, quantity) -> {
+            if (quantity != 0) {
+                itemRepository.addStock(itemId, quantity);
+            }
+        });
+        stockDeltaRepository.deleteAll(deltas.stream().map(StockDelta::getId).collect(Collectors.toList()));
+        log.debug("stock ledger flushed {} deltas for {} items", deltas.size(), netDeltas.size());
+        return deltas.size();
+    }
+
+    /**
+     * 재시작 시 이전 실행에서 반영 못한 변경분을 item 테이블에 반영
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        flush();
+        log.info("stock ledger reconciled");
+    }
+}
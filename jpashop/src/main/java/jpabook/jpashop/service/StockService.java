@@ -0,0 +1,66 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 재고 차감/원복
+ * 엔티티를 읽고-계산하고-쓰는 대신 조건부 update 한번으로 처리해서
+ * 같은 상품에 주문이 동시에 몰려도 초과 판매되지 않는다. (row lock 은 update 순간에만 잡힘)
+ * StockLedger 가 켜져 있으면 메모리 장부에서 차감하고 item 테이블은 나중에 모아서 반영
+ * 주문/취소 트랜잭션 안에서만 호출
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor
+public class StockService {
+
+    private final ItemRepository itemRepository;
+    private final Optional<StockLedger> stockLedger;
+
+    /**
+     * 재고 차감 - 재고가 부족하면 NotEnoughStockException, 없는 상품이면 IllegalArgumentException
+     * 차감이 안 됐을 때만 상품이 있는지 확인한다. (주문마다 미리 조회하지 않도록)
+     */
+    public void removeStock(Long itemId, int quantity) {
+        if (stockLedger.isPresent()) {
+            stockLedger.get().reserve(itemId, quantity);
+            return;
+        }
+
+        if (itemRepository.removeStock(itemId, quantity) == 0) {
+            if (itemRepository.findOne(itemId) == null) {
+                throw new IllegalArgumentException("상품이 존재하지 않습니다. id=" + itemId);
+            }
+            throw new NotEnoughStockException("need more stock");
+        }
+        itemRepository.refreshIfLoaded(itemId);
+    }
+
+    public void addStock(Long itemId, int quantity) {
+        if (stockLedger.isPresent()) {
+            stockLedger.get().release(itemId, quantity);
+            return;
+        }
+
+        itemRepository.addStock(itemId, quantity);
+        itemRepository.refreshIfLoaded(itemId);
+    }
+
+    /** 관리자 재고 수정 - 장부를 쓰면 item 재고를 덮어쓰지 않고 장부에 변경분으로 */
+    public void updateStock(Item item, int stockQuantity) {
+        if (stockLedger.isPresent()) {
+            stockLedger.get().adjust(item.getId(), stockQuantity);
+            return;
+        }
+
+        item.setStockQuantity(stockQuantity);
+    }
+}
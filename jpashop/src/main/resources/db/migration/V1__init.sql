@@ -0,0 +1,103 @@
+-- 초기 스키마 (이전에 ddl-auto 로 만들던 테이블 + 조회용 인덱스)
+
+create sequence category_seq start with 1 increment by 50;
+create sequence delivery_seq start with 1 increment by 50;
+create sequence item_seq start with 1 increment by 50;
+create sequence member_seq start with 1 increment by 50;
+create sequence order_seq start with 1 increment by 50;
+create sequence order_item_seq start with 1 increment by 50;
+create sequence stock_delta_seq start with 1 increment by 50;
+
+create table member (
+    member_id bigint not null,
+    name      varchar(255),
+    city      varchar(255),
+    street    varchar(255),
+    zipcode   varchar(255),
+    primary key (member_id),
+    -- 중복 가입 방지 + 이름 검색(= , like 'prefix%')
+    constraint uk_member_name unique (name)
+);
+
+create table item (
+    item_id        bigint      not null,
+    dtype          varchar(31) not null,
+    name           varchar(255),
+    price          integer     not null,
+    stock_quantity integer     not null,
+    version        bigint,
+    artist         varchar(255),
+    etc            varchar(255),
+    author         varchar(255),
+    isbn           varchar(255),
+    actor          varchar(255),
+    director       varchar(255),
+    primary key (item_id)
+);
+
+create table delivery (
+    delivery_id bigint not null,
+    city        varchar(255),
+    street      varchar(255),
+    zipcode     varchar(255),
+    status      varchar(255),
+    primary key (delivery_id)
+);
+
+create table orders (
+    order_id    bigint not null,
+    member_id   bigint,
+    delivery_id bigint,
+    order_date  timestamp,
+    status      varchar(255),
+    primary key (order_id),
+    constraint fk_orders_member foreign key (member_id) references member,
+    constraint fk_orders_delivery foreign key (delivery_id) references delivery,
+    constraint uk_orders_delivery unique (delivery_id)
+);
+-- 주문 검색: 상태 조건 + order_id desc 정렬/keyset
+create index idx_orders_status_id on orders (status, order_id);
+-- 회원 이름 검색 후 회원별 주문 + 기간 조건
+create index idx_orders_member_date on orders (member_id, order_date);
+
+create table order_item (
+    order_item_id bigint  not null,
+    order_id      bigint,
+    item_id       bigint,
+    order_price   integer not null,
+    count         integer not null,
+    primary key (order_item_id),
+    constraint fk_order_item_order foreign key (order_id) references orders,
+    constraint fk_order_item_item foreign key (item_id) references item
+);
+-- 주문상품 batch fetch (order_id in (...)), 상품/가격 조건 exists 서브쿼리
+create index idx_order_item_order on order_item (order_id, item_id, order_price);
+-- 상품으로 주문 찾기
+create index idx_order_item_item on order_item (item_id, order_id);
+
+create table category (
+    category_id bigint not null,
+    parent_id   bigint,
+    name        varchar(255),
+    primary key (category_id),
+    constraint fk_category_parent foreign key (parent_id) references category
+);
+create index idx_category_parent on category (parent_id);
+
+create table category_item (
+    category_id bigint not null,
+    item_id     bigint not null,
+    primary key (category_id, item_id),
+    constraint fk_category_item_category foreign key (category_id) references category,
+    constraint fk_category_item_item foreign key (item_id) references item
+);
+-- 상품의 카테고리 조회 (PK 는 카테고리 -> 상품 방향)
+create index idx_category_item_item on category_item (item_id);
+
+create table stock_delta (
+    stock_delta_id bigint  not null,
+    item_id        bigint,
+    quantity       integer not null,
+    primary key (stock_delta_id)
+);
+create index idx_stock_delta_item on stock_delta (item_id);
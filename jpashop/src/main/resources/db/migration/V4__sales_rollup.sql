@@ -0,0 +1,58 @@
+-- 주문 집계 (SalesRollupService) - 주문/취소할 때 같은 트랜잭션에서 증가시킨다.
+-- 집계 기준 시각은 주문일 (취소도 주문한 시간대에 집계), 기간은 HOUR / DAY
+-- 주문마다 같은 시간대 행을 갱신하므로 shard 로 행을 나눠 row lock 경합을 줄이고 조회할 때 합친다.
+
+create table sales_rollup (
+    period        varchar(8) not null,
+    bucket        timestamp  not null,
+    shard         integer    not null,
+    order_count   bigint     not null,
+    units         bigint     not null,
+    revenue       bigint     not null,
+    cancel_count  bigint     not null,
+    cancel_units  bigint     not null,
+    cancel_revenue bigint    not null,
+    primary key (period, bucket, shard)
+);
+
+create table item_sales_rollup (
+    period        varchar(8) not null,
+    bucket        timestamp  not null,
+    item_id       bigint     not null,
+    shard         integer    not null,
+    order_count   bigint     not null,
+    units         bigint     not null,
+    revenue       bigint     not null,
+    cancel_count  bigint     not null,
+    cancel_units  bigint     not null,
+    cancel_revenue bigint    not null,
+    primary key (period, bucket, item_id, shard)
+);
+-- 상품별 추이
+create index idx_item_sales_rollup_item on item_sales_rollup (item_id, period, bucket);
+
+-- 기존 주문 집계 (shard 0)
+insert into sales_rollup
+select p.period, date_trunc(p.period, o.order_date), 0,
+       count(*),
+       sum(t.units), sum(t.revenue),
+       sum(case when o.status = 'CANCEL' then 1 else 0 end),
+       sum(case when o.status = 'CANCEL' then t.units else 0 end),
+       sum(case when o.status = 'CANCEL' then t.revenue else 0 end)
+from orders o
+join (select order_id, sum(count) units, sum(cast(order_price as bigint) * count) revenue
+      from order_item group by order_id) t on t.order_id = o.order_id
+cross join (select 'HOUR' period union all select 'DAY') p
+group by p.period, date_trunc(p.period, o.order_date);
+
+insert into item_sales_rollup
+select p.period, date_trunc(p.period, o.order_date), oi.item_id, 0,
+       count(*),
+       sum(oi.count), sum(cast(oi.order_price as bigint) * oi.count),
+       sum(case when o.status = 'CANCEL' then 1 else 0 end),
+       sum(case when o.status = 'CANCEL' then oi.count else 0 end),
+       sum(case when o.status = 'CANCEL' then cast(oi.order_price as bigint) * oi.count else 0 end)
+from order_item oi
+join orders o on o.order_id = oi.order_id
+cross join (select 'HOUR' period union all select 'DAY') p
+group by p.period, date_trunc(p.period, o.order_date), oi.item_id;
@@ -0,0 +1,13 @@
+-- 주문 이벤트 outbox (OrderEvent) - 주문/취소 트랜잭션에서 insert, OrderEventRelay 가 보낸 뒤 delete
+-- 보내지 않은 이벤트만 남으므로 id 순으로 앞에서부터 읽으면 된다 (pk 인덱스)
+
+create sequence order_event_seq start with 1 increment by 50;
+
+create table order_event (
+    order_event_id bigint       not null,
+    type           varchar(255),
+    aggregate_id   bigint,
+    payload        varchar(4000),
+    created_at     timestamp,
+    primary key (order_event_id)
+);
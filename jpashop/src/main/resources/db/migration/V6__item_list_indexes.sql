@@ -0,0 +1,6 @@
+-- 상품 목록 페이지 정렬 (ItemSort) - 정렬 컬럼 + item_id 인덱스 순서대로 읽고 offset 만큼 건너뛴다.
+-- H2 는 인덱스를 거꾸로 읽지 못하므로 내림차순 정렬은 내림차순 인덱스를 따로 만든다.
+create index idx_item_name on item (name, item_id);
+create index idx_item_price on item (price, item_id);
+create index idx_item_price_desc on item (price desc, item_id desc);
+create index idx_item_id_desc on item (item_id desc);
@@ -0,0 +1,4 @@
+-- 주문 이벤트 payload 는 주문상품마다 길어지므로 (한 줄에 45자 정도) varchar(4000) 이면 상품 80여개부터 넘친다.
+-- outbox 는 주문과 같은 트랜잭션이라 넘치면 주문까지 롤백되므로 길이 제한 없는 clob 으로
+
+alter table order_event alter column payload clob;
@@ -0,0 +1,112 @@
+package jpabook.jpashop;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 지표 - 서비스 timer, 요청당 SQL 수, prometheus 출력
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class MetricsTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 주문_timer() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("지표회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        Book book = new Book();
+        book.setName("지표 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        long before = orderCount("place");
+
+        //when
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        orderService.cancelOrder(orderId);
+
+        //then
+        assertEquals(before + 1, orderCount("place"));
+        assertTrue(orderCount("cancel") >= 1);
+        assertTrue(meterRegistry.get("jpashop.member").tag("operation", "join").timer().count() >= 1);
+        assertTrue(meterRegistry.get("jpashop.sql.statement").timer().count() > 0);
+    }
+
+    @Test
+    public void 요청당_SQL_수() throws Exception {
+        //given
+        long beforeCount = count(statements("/api/v3/members"));
+        double beforeTotal = total(statements("/api/v3/members"));
+
+        //when
+        mockMvc.perform(get("/api/v3/members").param("size", "10")).andExpect(status().isOk());
+
+        //then - 회원 목록 한 페이지는 SQL 1번
+        DistributionSummary after = statements("/api/v3/members");
+        assertEquals(beforeCount + 1, after.count());
+        assertEquals("회원 목록 조회 SQL", beforeTotal + 1, after.totalAmount(), 0.0);
+    }
+
+    @Test
+    public void prometheus_출력() throws Exception {
+        mockMvc.perform(get("/api/v3/members")).andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("jpashop_http_sql_statements_count"));
+        assertTrue(body.contains("jpashop_sql_statement_seconds_count"));
+        assertTrue("커넥션 풀", body.contains("hikaricp_connections_active"));
+        assertTrue("hibernate 통계", body.contains("hibernate_statements_total"));
+    }
+
+    //class, method, exception 태그별로 나뉘어 있으므로 합계
+    private long orderCount(String operation) {
+        return meterRegistry.find("jpashop.order").tag("operation", operation).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+    private DistributionSummary statements(String uri) {
+        return meterRegistry.find("jpashop.http.sql.statements").tag("uri", uri).summary();
+    }
+
+    private static long count(DistributionSummary summary) {
+        return summary != null ? summary.count() : 0;
+    }
+
+    private static double total(DistributionSummary summary) {
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
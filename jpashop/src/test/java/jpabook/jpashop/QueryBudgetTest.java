@@ -0,0 +1,170 @@
+package jpabook.jpashop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.QueryBudgetExceededException;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @QueryBudget - 테스트는 jpashop.sql.query-budget.mode=fail 이므로 예산을 넘으면 QueryBudgetExceededException
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class QueryBudgetTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired QueryBudgetAspect queryBudgetAspect;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired PlatformTransactionManager transactionManager;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void 주문목록_화면_예산안() throws Exception {
+        //given - 회원, 상품이 다른 주문 30건 (화면에서 주문마다 회원, 주문상품, 상품을 읽는다)
+        for (int i = 0; i < 30; i++) {
+            Member member = new Member();
+            member.setName("예산회원" + i);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            memberService.join(member);
+            Book book = new Book();
+            book.setName("예산 JPA " + i);
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            itemService.saveItem(book);
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        double before = statements("/orders");
+
+        //when - 지연 로딩이 주문 수만큼 나가면 예산 초과로 실패
+        mockMvc.perform(get("/orders")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/orders").param("size", "100")).andExpect(status().isOk());
+
+        //then
+        double used = statements("/orders") - before;
+        assertTrue("주문 수와 상관없이 batch fetch 로 몇 번만: " + used, used <= 25);
+    }
+
+    @Test
+    public void 예산초과_실패() throws Exception {
+        //given
+        Counting target = proxy(new Counting(em, transactionManager));
+        double before = exceeded("Counting.select(..)");
+
+        //when
+        target.select(1);
+        try {
+            target.select(3);
+            fail("예산을 넘으면 QueryBudgetExceededException 이 발생해야 한다");
+        } catch (QueryBudgetExceededException e) {
+            //then
+            assertTrue(e.getMessage(), e.getMessage().contains("SQL 3 개"));
+        }
+        assertEquals(before + 1, exceeded("Counting.select(..)"), 0.0);
+    }
+
+    @Test
+    public void 바깥에서_세는중이면_차이만() throws Exception {
+        //given - 요청처럼 바깥에서 이미 SQL 을 세고 있는 중
+        Counting target = proxy(new Counting(em, transactionManager));
+        SqlStatementMetrics.begin();
+        try {
+            target.select(2);
+
+            //when - 이 메서드는 SQL 2 개만 (바깥 집계는 계속 늘어남)
+            target.select(2);
+
+            //then
+            assertEquals(4, SqlStatementMetrics.current().getStatements());
+        } finally {
+            SqlStatementMetrics.end();
+        }
+    }
+
+    @Test
+    public void 호출한쪽_insert_는_세지_않음() throws Exception {
+        //given
+        Counting target = proxy(new Counting(em, transactionManager));
+
+        //when - 호출한 쪽 트랜잭션에 flush 전 insert 가 쌓인 채로 호출 (native query 가 auto flush)
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                Member member = new Member();
+                member.setName("예산밖회원" + i);
+                em.persist(member);
+            }
+            target.select(2);
+            status.setRollbackOnly();
+        });
+
+        //then - 예산(2)을 넘지 않아 예외 없음
+    }
+
+    private Counting proxy(Counting target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(queryBudgetAspect);
+        return factory.getProxy();
+    }
+
+    private double statements(String uri) {
+        return meterRegistry.find("jpashop.http.sql.statements").tag("uri", uri).summaries().stream()
+                .mapToDouble(summary -> summary.totalAmount())
+                .sum();
+    }
+
+    private double exceeded(String target) {
+        Counter counter = meterRegistry.find("jpashop.sql.budget.exceeded").tag("target", target).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    /**
+     * count 만큼 SQL 실행 - 예산 2
+     */
+    static class Counting {
+
+        private final EntityManager em;
+        private final TransactionTemplate transactionTemplate;
+
+        Counting(EntityManager em, PlatformTransactionManager transactionManager) {
+            this.em = em;
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            this.transactionTemplate.setReadOnly(true);
+        }
+
+        @QueryBudget(2)
+        public void select(int count) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < count; i++) {
+                    em.createNativeQuery("select count(*) from member").getSingleResult();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class WebExecutionConfigTest {
+
+    @Autowired ApplicationContext context;
+
+    @Test
+    public void MVC_async_executor_가_Boot_기본_executor_를_대신하지_않음() throws Exception {
+        //then - @Async, @EnableScheduling 등이 쓰는 applicationTaskExecutor 는 그대로
+        assertTrue(context.getBean("applicationTaskExecutor") instanceof ThreadPoolTaskExecutor);
+        assertFalse(context.containsBean("mvcAsyncExecutor"));
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberQueryDto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 회원 목록 v3(keyset 페이징 + DTO 조회) - 시간 비교는 jmh 의 MemberApiBenchmark
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class MemberApiV3Test {
+
+    private static final int MEMBERS = 250;
+
+    @Autowired MemberApiController memberApiController;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void 회원목록_v3_전체_페이지() throws Exception {
+        //given
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = new Member();
+            member.setName("페이지회원" + i);
+            member.setAddress(new Address("서울", "강가" + i, "123-123"));
+            em.persist(member);
+        }
+        em.flush();
+        em.clear();
+
+        //when - v3 로 전체를 끝까지 읽기
+        Set<Long> ids = new HashSet<>();
+        Long cursor = null;
+        do {
+            MemberApiController.MemberPage page = memberApiController.membersV3(cursor, 100);
+            assertTrue(page.getCount() <= 100);
+            for (MemberQueryDto member : page.getData()) {
+                assertTrue("id 순서로 다음 페이지", cursor == null || member.getId() > cursor);
+                ids.add(member.getId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        //then
+        assertTrue("v3 로 전체 회원을 읽을 수 있어야 한다", ids.size() >= MEMBERS);
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.domain;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class PooledSequenceGeneratorTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Value("${spring.jpa.properties.jpashop.id.allocation_size}")
+    int allocationSize;
+
+    @Test
+    public void 대량저장_시퀀스_호출수() throws Exception {
+        //given
+        int count = 1000;
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Set<Long> ids = new HashSet<>();
+
+        //when
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.setName("대량회원" + i);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+
+        //then - 시퀀스 호출 count / allocation_size 번 + batch insert (시간 비교는 jmh BulkInsertBenchmark)
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals("id 는 중복되지 않아야 한다", count, ids.size());
+        assertTrue("insert 마다 시퀀스를 호출하지 않아야 한다", statements <= count / allocationSize + 2);
+        statistics.setStatisticsEnabled(false);
+    }
+}
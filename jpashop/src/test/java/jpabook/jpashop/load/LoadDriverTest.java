@@ -0,0 +1,89 @@
+package jpabook.jpashop.load;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+/**
+ * 작은 데이터를 넣고 실제 포트로 짧게 부하 - 시작하면서 DatasetSeeder, 준비되면 LoadDriver 가 돈다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "jpashop.seed.enabled=true",
+        "jpashop.seed.members=200",
+        "jpashop.seed.items=30",
+        "jpashop.seed.category-depth=2",
+        "jpashop.seed.category-width=3",
+        "jpashop.seed.orders=1000",
+        "jpashop.seed.batch-size=64",
+        "jpashop.load.enabled=true",
+        "jpashop.load.users=4",
+        "jpashop.load.warmup=2",
+        "jpashop.load.duration=3",
+        "jpashop.load.exit-when-done=false",
+        "spring.datasource.url=jdbc:h2:mem:load",
+        "spring.jpa.properties.hibernate.cache.region_prefix=load", //다른 DB 를 쓰므로 2차 캐시도 따로
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"})
+public class LoadDriverTest {
+
+    @Autowired LoadDriver loadDriver;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void 데이터_생성() throws Exception {
+        //then
+        assertEquals(200, count("select count(*) from member"));
+        assertEquals(30, count("select count(*) from item"));
+        assertEquals("책 / 앨범 / 영화 번갈아", 10, count("select count(*) from item where dtype = 'A'"));
+        assertEquals("카테고리 3 + 9", 12, count("select count(*) from category"));
+        assertEquals("상품마다 말단 카테고리 하나", 30, count("select count(*) from category_item"));
+        assertTrue(count("select count(*) from orders") >= 1000);
+        assertTrue(count("select count(*) from order_item") >= 1000);
+
+        //then - 앞쪽 회원 10% 의 주문이 뒤쪽 10% 보다 훨씬 많다
+        long first = count("select count(*) from orders o where o.member_id < (select min(member_id) + 20 from member)");
+        long last = count("select count(*) from orders o where o.member_id > (select max(member_id) - 20 from member)");
+        assertTrue(first + " vs " + last, first > last * 3);
+
+        //then - 넣은 주문도 집계에 (부하 중 주문이 함께 세어지도록 한 문장으로 비교)
+        assertEquals(0, count("select (select count(*) from orders)"
+                + " - (select sum(order_count) from sales_rollup where period = 'DAY')"));
+        assertEquals(0, count("select (select sum(count) from order_item)"
+                + " - (select sum(units) from item_sales_rollup where period = 'HOUR')"));
+    }
+
+    @Test
+    public void 부하_결과() throws Exception {
+        //when
+        LoadReport report = waitForReport();
+
+        //then
+        assertEquals(4, report.getUsers());
+        assertTrue(report.getTotal().getCount() > 0);
+        assertEquals("모든 요청 성공", 0, report.getTotal().getErrors());
+        for (LoadDriver.Endpoint endpoint : LoadDriver.Endpoint.values()) {
+            LoadReport.Stats stats = report.get(endpoint);
+            assertTrue(endpoint.name(), stats.getCount() > 0);
+            assertTrue(stats.getP50() <= stats.getP99());
+            assertTrue(stats.getP99() <= stats.getMax());
+        }
+    }
+
+    private LoadReport waitForReport() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (loadDriver.getReport() == null) {
+            assertTrue("부하가 끝나지 않음", System.currentTimeMillis() < deadline);
+            Thread.sleep(100);
+        }
+        return loadDriver.getReport();
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
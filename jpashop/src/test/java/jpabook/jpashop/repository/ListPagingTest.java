@@ -0,0 +1,124 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.PageResult;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 상품 / 회원 목록 페이지
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class ListPagingTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired ItemRepository itemRepository;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void 상품목록_가격순_페이지() throws Exception {
+        //given - 가격 1000 ~ 25000, 같은 가격 2개씩
+        long before = itemRepository.count();
+        for (int i = 0; i < 50; i++) {
+            Book book = new Book();
+            book.setName("페이지 JPA" + i);
+            book.setPrice(1000 * (i / 2 + 1) + 100_000_000); //다른 테스트 상품보다 비싸게
+            book.setStockQuantity(10);
+            em.persist(book);
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        PageResult<Item> first = itemService.findItems(ItemSort.PRICE_DESC, 0, 20);
+        PageResult<Item> second = itemService.findItems(ItemSort.PRICE_DESC, 1, 20);
+
+        //then
+        assertEquals(before + 50, first.getTotalCount());
+        assertEquals(20, first.getContent().size());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+        List<Integer> prices = first.getContent().stream().map(Item::getPrice).collect(Collectors.toList());
+        assertEquals("높은 가격순", 100_025_000, (int) prices.get(0));
+        assertEquals(100_025_000, (int) prices.get(1));
+        assertEquals(100_016_000, (int) prices.get(19));
+        assertEquals("다음 페이지는 이어서", 100_015_000, second.getContent().get(0).getPrice());
+        assertTrue("같은 가격은 id 역순", first.getContent().get(0).getId() > first.getContent().get(1).getId());
+    }
+
+    @Test
+    public void 회원목록_이름순_페이지() throws Exception {
+        //given
+        for (int i = 0; i < 30; i++) {
+            Member member = new Member();
+            member.setName(String.format("가나다페이지%02d", 29 - i));
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            memberService.join(member);
+        }
+        em.flush();
+        em.clear();
+
+        //when - 이름순 마지막 페이지들
+        PageResult<MemberQueryDto> all = memberService.findMembers(MemberSort.NAME, 0, 100);
+        int index = all.getContent().stream().map(MemberQueryDto::getName).collect(Collectors.toList())
+                .indexOf("가나다페이지00");
+        PageResult<MemberQueryDto> page = memberService.findMembers(MemberSort.NAME, index / 10, 10);
+
+        //then
+        assertTrue(index >= 0);
+        List<String> names = all.getContent().stream().map(MemberQueryDto::getName).collect(Collectors.toList());
+        assertEquals("이름순", names.stream().sorted().collect(Collectors.toList()), names);
+        assertEquals(all.getContent().get(index / 10 * 10).getId(), page.getContent().get(0).getId());
+        assertEquals(all.getTotalCount(), page.getTotalCount());
+    }
+
+    @Test
+    public void 페이지_번호_목록() throws Exception {
+        assertEquals(List.of(0, 1, 2), new PageResult<>(List.of(), 0, 10, 25).getNavigation());
+        assertEquals(List.of(15, 16, 17, 18, 19, 20, 21, 22, 23, 24), new PageResult<>(List.of(), 20, 10, 1000).getNavigation());
+        assertEquals(List.of(90, 91, 92, 93, 94, 95, 96, 97, 98, 99), new PageResult<>(List.of(), 99, 10, 1000).getNavigation());
+        assertEquals(100, new PageResult<>(List.of(), 99, 10, 1000).getTotalPages());
+        assertFalse(new PageResult<>(List.of(), 99, 10, 1000).hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 너무_뒤_페이지() throws Exception {
+        //when - page * size 가 int 를 넘음
+        itemService.findItems(ItemSort.ID, Integer.MAX_VALUE, 100);
+
+        //then
+        fail("offset 이 넘치면 IllegalArgumentException 이 발생해야 한다");
+    }
+
+    @Test
+    public void 너무_뒤_페이지_요청은_400() throws Exception {
+        mockMvc.perform(get("/items").param("page", String.valueOf(Integer.MAX_VALUE))).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members").param("page", String.valueOf(Integer.MAX_VALUE))).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/items").param("q", "JPA").param("page", String.valueOf(Integer.MAX_VALUE))).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryBuilderTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void 조건순서와_값에_상관없이_같은_JPQL() throws Exception {
+        //given
+        OrderQueryBuilder builder1 = new OrderQueryBuilder()
+                .status(OrderStatus.ORDER)
+                .memberNamePrefix("kim")
+                .item(1L);
+        OrderQueryBuilder builder2 = new OrderQueryBuilder()
+                .item(2L)
+                .memberNamePrefix("lee")
+                .status(OrderStatus.CANCEL);
+
+        //then
+        assertEquals(builder1.toJpql(), builder2.toJpql());
+        assertEquals("kim%", builder1.parameters().get("name"));
+    }
+
+    @Test
+    public void 회원이름_like_특수문자_escape() throws Exception {
+        OrderQueryBuilder builder = new OrderQueryBuilder().memberNamePrefix("50%_!");
+
+        assertEquals("50!%!_!!%", builder.parameters().get("name"));
+    }
+
+    @Test
+    public void 회원이름_정규화() throws Exception {
+        OrderQueryBuilder prefix = new OrderQueryBuilder().memberNamePrefix("  ＫＩＭ   Young ");
+        OrderQueryBuilder contains = new OrderQueryBuilder().memberNameContains("Young");
+
+        assertEquals("전각, 대소문자, 공백 정리", "kim young%", prefix.parameters().get("name"));
+        assertEquals("%young%", contains.parameters().get("name"));
+        assertEquals(prefix.toJpql(), contains.toJpql());
+    }
+
+    @Test
+    public void 쿼리플랜캐시_재사용() throws Exception {
+        //given
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //when - 4가지 조건 조합을 값만 바꿔서 100번 검색
+        for (int i = 0; i < 100; i++) {
+            OrderSearch orderSearch = new OrderSearch();
+            orderSearch.setMemberName("회원" + i);
+            switch (i % 4) {
+                case 0: orderSearch.setOrderStatus(OrderStatus.values()[i % 2]); break;
+                case 1: orderSearch.setItemId((long) i); break;
+                case 2: orderSearch.setMinPrice(i * 100); orderSearch.setMaxPrice(i * 200); break;
+                default: break;
+            }
+            OrderQueryBuilder.from(orderSearch).build(em, 10).getResultList();
+        }
+
+        //then - 파싱 시간 비교는 jmh 의 OrderQueryBuilderBenchmark
+        assertTrue("조건 조합 수 만큼만 파싱해야 한다", statistics.getQueryPlanCacheMissCount() <= 4);
+        assertTrue(statistics.getQueryPlanCacheHitCount() >= 96);
+        statistics.setStatisticsEnabled(false);
+    }
+}
@@ -0,0 +1,151 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.Session;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 자주 쓰는 조회 쿼리의 실행계획(H2 EXPLAIN) 확인
+ * 인덱스가 빠지거나 쿼리가 바뀌어서 full scan(tableScan) 으로 바뀌면 실패한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class QueryPlanTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void 주문검색_주문상태() throws Exception {
+        String plan = explain(new OrderQueryBuilder().status(OrderStatus.ORDER).fetchMemberDelivery());
+
+        assertNoFullScan(plan, "ORDERS", "MEMBER", "DELIVERY");
+        assertTrue("상태 + order_id 인덱스로 정렬까지\n" + plan, plan.contains("PUBLIC.IDX_ORDERS_STATUS_ID"));
+    }
+
+    @Test
+    public void 주문검색_회원이름() throws Exception {
+        String plan = explain(new OrderQueryBuilder().memberNamePrefix("Kim").fetchMemberDelivery());
+
+        assertNoFullScan(plan, "ORDERS", "MEMBER", "DELIVERY");
+        assertTrue("정규화 이름 인덱스로 앞부분 일치\n" + plan, plan.contains("PUBLIC.IDX_MEMBER_NORMALIZED_NAME"));
+    }
+
+    @Test
+    public void 주문검색_회원이름포함_후보회원() throws Exception {
+        String plan = explain(new OrderQueryBuilder().memberNameContains("im")
+                .memberIds(Collections.singletonList(1L)).fetchMemberDelivery());
+
+        assertNoFullScan(plan, "ORDERS", "MEMBER", "DELIVERY");
+    }
+
+    @Test
+    public void 주문검색_회원이름_기간() throws Exception {
+        String plan = explain(new OrderQueryBuilder().memberNamePrefix("kim")
+                .orderDateFrom(LocalDateTime.now().minusDays(7)).fetchMemberDelivery());
+
+        assertNoFullScan(plan, "ORDERS", "MEMBER", "DELIVERY");
+    }
+
+    @Test
+    public void 주문검색_상품조건() throws Exception {
+        String plan = explain(new OrderQueryBuilder().status(OrderStatus.ORDER).item(1L).price(1000, null));
+
+        assertNoFullScan(plan, "ORDERS", "MEMBER", "ORDER_ITEM");
+    }
+
+    @Test
+    public void 주문상품_batch_fetch() throws Exception {
+        String plan = explain("select oi from OrderItem oi where oi.order.id = :orderId", 1L);
+
+        assertNoFullScan(plan, "ORDER_ITEM");
+    }
+
+    @Test
+    public void 카테고리_상품() throws Exception {
+        String plan = explain("select c from Category c join c.items i where i.id = :itemId", 1L);
+
+        assertNoFullScan(plan, "CATEGORY", "CATEGORY_ITEM");
+    }
+
+    @Test
+    public void 카테고리_하위카테고리_상품() throws Exception {
+        String plan = explain("select distinct i from Category c join c.items i where c.path like :path order by i.id", "1/5/%");
+
+        assertNoFullScan(plan, "CATEGORY", "CATEGORY_ITEM", "ITEM");
+        assertTrue("path 인덱스 범위 검색\n" + plan, plan.contains("PUBLIC.IDX_CATEGORY_PATH"));
+    }
+
+    @Test
+    public void 상품목록_정렬() throws Exception {
+        for (ItemSort sort : ItemSort.values()) {
+            String plan = explain("select i.id from Item i order by " + sort.getOrderBy());
+
+            assertTrue(sort + " 정렬 인덱스 순서대로 읽어서 정렬 생략\n" + plan, plan.contains("/* index sorted */"));
+        }
+    }
+
+    @Test
+    public void 회원목록_정렬() throws Exception {
+        String plan = explain("select m.id from Member m order by " + MemberSort.NAME.getOrderBy());
+
+        assertTrue("이름 unique 인덱스 순서대로 읽어서 정렬 생략\n" + plan, plan.contains("/* index sorted */"));
+    }
+
+    @Test
+    public void 회원이름_중복확인() throws Exception {
+        String plan = explain("select m.id from Member m where m.name = :name", "kim");
+
+        assertNoFullScan(plan, "MEMBER");
+    }
+
+    private String explain(OrderQueryBuilder builder) {
+        //in (:memberIds) 는 원소 하나로
+        return explain(builder.toJpql(), builder.parameters().values().stream()
+                .map(value -> value instanceof Collection ? ((Collection<?>) value).iterator().next() : value)
+                .toArray());
+    }
+
+    //    JPQL -> hibernate 가 만드는 SQL -> H2 EXPLAIN (파라미터는 SQL 에 나오는 순서대로)
+    private String explain(String jpql, Object... parameters) {
+        HQLQueryPlan queryPlan = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap());
+        String sql = queryPlan.getSqlStrings()[0];
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    Object parameter = parameters[i];
+                    statement.setObject(i + 1, parameter instanceof Enum ? ((Enum<?>) parameter).name() : parameter);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    private void assertNoFullScan(String plan, String... tables) {
+        for (String table : tables) {
+            assertFalse(table + " full scan\n" + plan, plan.contains("PUBLIC." + table + ".tableScan"));
+        }
+    }
+}
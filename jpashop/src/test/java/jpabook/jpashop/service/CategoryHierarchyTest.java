@@ -0,0 +1,107 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 하위 카테고리 전체 상품 - 연관관계를 재귀로 따라가기(lazy loading) vs path 쿼리 한번
+ * 여기서는 결과와 쿼리 수만 비교하고, 시간 비교는 jmh 의 CategoryHierarchyBenchmark
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryHierarchyTest {
+
+    private static final int DEPTH = 3;
+    private static final int WIDTH = 3; //카테고리 1 + 3 + 9 + 27 = 40, 상품은 맨 아래 카테고리마다 하나
+
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired CategoryHierarchy categoryHierarchy;
+    @PersistenceContext EntityManager em;
+
+    @After
+    public void tearDown() {
+        categoryHierarchy.invalidate(); //롤백된 카테고리를 캐시에 남기지 않도록
+    }
+
+    @Test
+    public void 하위카테고리_상품_재귀조회_path조회_쿼리수() throws Exception {
+        //given
+        Category root = new Category();
+        root.setName("계층 루트");
+        int items = createTree(root, 0);
+        categoryRepository.save(root);
+        em.flush();
+        em.clear();
+        categoryHierarchy.invalidate();
+        categoryHierarchy.node(root.getId());
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //when - 재귀로 하위 카테고리와 상품 컬렉션 초기화
+        Set<Long> recursive = new HashSet<>();
+        collectItems(em.find(Category.class, root.getId()), recursive);
+        long recursiveStatements = statistics.getPrepareStatementCount();
+        em.clear();
+        statistics.clear();
+
+        //when - 캐시된 트리의 path 로 쿼리 한번
+        int found = categoryService.findItems(root.getId(), null, items + 1).size();
+        long pathStatements = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+
+        //then
+        assertEquals(items, recursive.size());
+        assertEquals(items, found);
+        assertEquals("상품 쿼리 한번", 1, pathStatements);
+        assertTrue(recursiveStatements > DEPTH);
+    }
+
+    private int createTree(Category category, int depth) {
+        if (depth == DEPTH) {
+            Book book = new Book();
+            book.setName(category.getName() + " 상품");
+            em.persist(book);
+            category.getItems().add(book);
+            return 1;
+        }
+        int items = 0;
+        for (int i = 0; i < WIDTH; i++) {
+            Category child = new Category();
+            child.setName(category.getName() + "-" + i);
+            category.addChildCategory(child);
+            items += createTree(child, depth + 1);
+        }
+        return items;
+    }
+
+    private void collectItems(Category category, Set<Long> itemIds) {
+        for (Item item : category.getItems()) {
+            itemIds.add(item.getId());
+        }
+        for (Category child : category.getChild()) {
+            collectItems(child, itemIds);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 카테고리 트리 캐시는 커밋된 뒤에 무효화되므로 @Transactional 없이 실행
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryHierarchy categoryHierarchy;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 하위카테고리_상품() throws Exception {
+        //given - 도서 > 컴퓨터 > 자바, 도서 > 소설
+        Long book = categoryService.createRoot("도서");
+        Long computer = categoryService.addChild(book, "컴퓨터");
+        Long java = categoryService.addChild(computer, "자바");
+        Long novel = categoryService.addChild(book, "소설");
+        Long jpa = createItem("JPA 프로그래밍", java);
+        Long algorithm = createItem("알고리즘", computer);
+        Long tale = createItem("소설책", novel);
+        categoryService.addItem(computer, jpa); //여러 카테고리에 속한 상품은 한번만
+
+        //then
+        assertEquals(book + "/" + computer + "/" + java + "/", categoryHierarchy.node(java).getPath());
+        assertEquals(List.of(jpa, algorithm, tale), ids(categoryService.findItems(book, null, 10)));
+        assertEquals(List.of(jpa, algorithm), ids(categoryService.findItems(computer, null, 10)));
+        assertEquals(List.of(jpa), ids(categoryService.findItems(java, null, 10)));
+        assertEquals("cursor 이후", List.of(algorithm), ids(categoryService.findItems(computer, jpa, 10)));
+        assertEquals(List.of("도서", "컴퓨터", "자바"), categoryHierarchy.ancestors(java).stream()
+                .map(CategoryHierarchy.Node::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void 카테고리추가_캐시무효화() throws Exception {
+        //given
+        Long root = categoryService.createRoot("음반");
+        assertTrue(categoryHierarchy.node(root).getChildren().isEmpty());
+
+        //when
+        Long child = categoryService.addChild(root, "재즈");
+
+        //then
+        assertEquals("커밋 후 트리를 다시 읽는다", child, categoryHierarchy.node(root).getChildren().get(0).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_카테고리() throws Exception {
+        categoryService.findItems(-1L, null, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_카테고리에_상품등록() throws Exception {
+        Book book = new Book();
+        book.setName("갈곳없는 JPA");
+        itemService.saveItem(book);
+        categoryService.addItem(-1L, book.getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_상품을_카테고리에_등록() throws Exception {
+        categoryService.addItem(categoryService.createRoot("빈 카테고리"), -1L);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void 캐시된_트리는_읽기전용() throws Exception {
+        //given
+        Long root = categoryService.createRoot("읽기전용");
+        categoryService.addChild(root, "하위");
+
+        //when - 캐시를 같이 쓰는 다른 요청에 영향이 가지 않도록 막는다
+        categoryHierarchy.node(root).getChildren().clear();
+
+        //then
+        fail("트리는 고칠 수 없어야 한다");
+    }
+
+    private Long createItem(String name, Long categoryId) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        categoryService.addItem(categoryId, book.getId());
+        return book.getId();
+    }
+
+    private List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,129 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 2차 캐시는 트랜잭션이 커밋되어야 반영되므로 @Transactional 없이 실행
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemCacheTest {
+
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired OrderService orderService;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void 상품조회_2차캐시() throws Exception {
+        //given
+        Book book = createBook("캐시 JPA", 10);
+        itemService.findOne(book.getId());
+        statistics.clear();
+
+        //when
+        Item item = itemService.findOne(book.getId());
+
+        //then
+        assertEquals("캐시 JPA", item.getName());
+        assertEquals("2차 캐시에서 조회", 1, statistics.getSecondLevelCacheHitCount());
+        assertEquals("DB 조회 없음", 0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void 주문시_해당상품만_캐시무효화() throws Exception {
+        //given
+        Member member = createMember();
+        Book ordered = createBook("주문할 책", 10);
+        Book other = createBook("다른 책", 10);
+        itemService.findOne(ordered.getId());
+        itemService.findOne(other.getId());
+
+        //when
+        orderService.order(member.getId(), ordered.getId(), 3);
+
+        //then
+        statistics.clear();
+        assertEquals("재고 변경이 반영되어야 한다", 7, itemService.findOne(ordered.getId()).getStockQuantity());
+        assertEquals(10, itemService.findOne(other.getId()).getStockQuantity());
+        assertEquals("다른 상품은 캐시에 남아있어야 한다", 1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(1, statistics.getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    public void 상품수정_캐시반영() throws Exception {
+        //given
+        Book book = createBook("수정 전", 10);
+        itemService.findOne(book.getId());
+
+        //when
+        itemService.updateItem(book.getId(), "수정 후", 20000, 5);
+
+        //then
+        Item item = itemService.findOne(book.getId());
+        assertEquals("수정 후", item.getName());
+        assertEquals(5, item.getStockQuantity());
+    }
+
+    @Test
+    public void 상품목록_쿼리캐시() throws Exception {
+        //given
+        createBook("목록 책", 10);
+        itemService.findItems();
+        statistics.clear();
+
+        //when
+        int before = itemService.findItems().size();
+
+        //then
+        assertEquals("query cache hit", 1, statistics.getQueryCacheHitCount());
+        assertEquals("DB 조회 없음", 0, statistics.getPrepareStatementCount());
+
+        //상품이 추가되면 query cache 무효화
+        createBook("추가된 책", 10);
+        List<Item> after = itemService.findItems();
+        assertEquals(before + 1, after.size());
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("캐시회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}
@@ -0,0 +1,135 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.service.ItemImportService.Format;
+import org.hibernate.Session;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ItemImportServiceTest {
+
+    @Autowired ItemImportService itemImportService;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void CSV_일괄등록() throws Exception {
+        //given
+        String csv = "type,name,price,stockQuantity,author,isbn,artist,director\n" +
+                "BOOK,\"JPA, 기본편\",20000,10,김영한,1234,,\n" +
+                "A,앨범,15000,5,,,아이유,\n" +
+                "movie,영화,12000,3,,,,봉준호\n" +
+                "BOOK,가격오류,abc,1,,,,\n" +
+                "CD,타입오류,1000,1,,,,\n";
+
+        //when
+        ItemImportResult result = itemImportService.importItems(toStream(csv), Format.CSV);
+
+        //then
+        assertEquals(5, result.getTotal());
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getRejectedCount());
+        assertEquals("실패한 행 번호 (헤더가 1행)", 5, result.getRejected().get(0).getLine());
+        assertEquals(6, result.getRejected().get(1).getLine());
+
+        Book book = (Book) findByName("JPA, 기본편");
+        assertEquals("김영한", book.getAuthor());
+        assertEquals(10, book.getStockQuantity());
+        assertEquals("아이유", ((Album) findByName("앨범")).getArtist());
+        assertEquals("봉준호", ((Movie) findByName("영화")).getDirector());
+    }
+
+    @Test
+    public void JSON_일괄등록() throws Exception {
+        //given
+        String json = "[" +
+                "{\"type\":\"BOOK\",\"name\":\"JSON 책\",\"price\":10000,\"stockQuantity\":7,\"isbn\":\"999\"}," +
+                "{\"type\":\"MOVIE\",\"name\":\"\",\"price\":1000,\"stockQuantity\":1}," +
+                "{\"type\":\"ALBUM\",\"name\":\"JSON 앨범\",\"price\":\"비싸요\",\"stockQuantity\":1}" +
+                "]";
+
+        //when
+        ItemImportResult result = itemImportService.importItems(toStream(json), Format.JSON);
+
+        //then
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejectedCount());
+        assertEquals("999", ((Book) findByName("JSON 책")).getIsbn());
+    }
+
+    @Test
+    public void JSON_문법오류() throws Exception {
+        //given - 두번째 항목에서 JSON 이 깨짐
+        String json = "[" +
+                "{\"type\":\"BOOK\",\"name\":\"깨지기전 책\",\"price\":10000,\"stockQuantity\":7}," +
+                "{\"type\":\"BOOK\",\"name\":\"깨진 책\" \"price\":10000}," +
+                "{\"type\":\"BOOK\",\"name\":\"깨진뒤 책\",\"price\":10000,\"stockQuantity\":7}" +
+                "]";
+
+        //when
+        ItemImportResult result = itemImportService.importItems(toStream(json), Format.JSON);
+
+        //then - 깨진 곳까지만 읽고 거부된 항목은 배열 순번으로
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getRejectedCount());
+        assertEquals(2, result.getRejected().get(0).getLine());
+        assertTrue(result.getRejected().get(0).getReason().startsWith("malformed JSON"));
+        assertNotNull(findByName("깨지기전 책"));
+    }
+
+    @Test
+    public void 대량등록_영속성컨텍스트_비움() throws Exception {
+        //given - 헤더 + 2500행을 한 행씩 만들어서 흘려보냄
+        int count = 2500;
+        List<InputStream> lines = IntStream.range(0, count)
+                .mapToObj(i -> toStream("BOOK,대량상품" + i + "," + (1000 + i) + ",10\n"))
+                .collect(Collectors.toList());
+        lines.add(0, toStream("type,name,price,stockQuantity\n"));
+        InputStream in = new SequenceInputStream(Collections.enumeration(lines));
+
+        //when
+        ItemImportResult result = itemImportService.importItems(in, Format.CSV);
+
+        //then
+        assertEquals(count, result.getImported());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals("배치마다 clear 되어 영속성 컨텍스트에 남은 entity 가 없어야 한다",
+                0, em.unwrap(Session.class).getStatistics().getEntityCount());
+        Long saved = em.createQuery("select count(i) from Item i where i.name like '대량상품%'", Long.class)
+                .getSingleResult();
+        assertEquals(count, saved.intValue());
+    }
+
+    private Item findByName(String name) {
+        return em.createQuery("select i from Item i where i.name = :name", Item.class)
+                .setParameter("name", name)
+                .getSingleResult();
+    }
+
+    private InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,121 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 상품은 커밋된 뒤에 색인되므로 @Transactional 없이 실행
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemSearchTest {
+
+    @Autowired ItemService itemService;
+    @Autowired ItemSearchIndex itemSearchIndex;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 상품검색_관련도순() throws Exception {
+        //given
+        Book byAuthor = createBook("객체지향 설계", "검색테스트저자", "978-89-0000-001-1");
+        Book byName = createBook("검색테스트저자 에세이", "홍길동", "978-89-0000-002-8");
+        createBook("전혀 다른 책", "이몽룡", "978-89-0000-003-5");
+
+        //when
+        ItemSearchResult result = itemService.searchItems("검색테스트저자", 0, 10);
+
+        //then
+        assertEquals(2, result.getTotalHits());
+        assertEquals("상품명 일치가 저자 일치보다 먼저", byName.getId(), result.getItems().get(0).getId());
+        assertEquals(byAuthor.getId(), result.getItems().get(1).getId());
+    }
+
+    @Test
+    public void ISBN_음반_영화_검색() throws Exception {
+        //given
+        Book book = createBook("시골 개발자의 JPA", "김영한", "978-89-6077-733-0");
+        Album album = new Album();
+        album.setName("Abbey Road");
+        album.setArtist("The Beatles");
+        itemService.saveItem(album);
+        Movie movie = new Movie();
+        movie.setName("기생충");
+        movie.setDirector("봉준호");
+        movie.setActor("송강호");
+        itemService.saveItem(movie);
+
+        //then
+        assertEquals("- 없이 ISBN", book.getId(), ids(itemService.searchItems("9788960777330", 0, 10)).get(0));
+        assertTrue("대소문자 무시", ids(itemService.searchItems("beatles", 0, 10)).contains(album.getId()));
+        assertTrue("배우", ids(itemService.searchItems("송강호", 0, 10)).contains(movie.getId()));
+        assertTrue("lucene 문법 문자는 그대로", itemService.searchItems("JPA (\"+", 0, 10).getTotalHits() >= 0);
+    }
+
+    @Test
+    public void 상품수정_색인반영_롤백은_무시() throws Exception {
+        //given
+        Book book = createBook("수정전상품명", "저자", "1");
+
+        //when
+        itemService.updateItem(book.getId(), "수정후상품명", 10000, 10);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                itemService.updateItem(book.getId(), "롤백상품명", 10000, 10);
+                status.setRollbackOnly();
+            });
+        } catch (RuntimeException ignored) {
+        }
+
+        //then
+        assertEquals(0, itemService.searchItems("수정전상품명", 0, 10).getTotalHits());
+        assertEquals(book.getId(), ids(itemService.searchItems("수정후상품명", 0, 10)).get(0));
+        assertEquals("롤백된 수정은 색인하지 않는다", 0, itemService.searchItems("롤백상품명", 0, 10).getTotalHits());
+    }
+
+    @Test
+    public void 페이지() throws Exception {
+        //given
+        for (int i = 0; i < 25; i++) {
+            createBook("페이지검색 " + i, "저자", "2");
+        }
+
+        //when
+        ItemSearchResult first = itemService.searchItems("페이지검색", 0, 10);
+        ItemSearchResult last = itemService.searchItems("페이지검색", 2, 10);
+
+        //then
+        assertEquals(25, first.getTotalHits());
+        assertEquals(10, first.getItems().size());
+        assertEquals(5, last.getItems().size());
+        assertTrue(ids(last).stream().noneMatch(ids(first)::contains));
+    }
+
+    private List<Long> ids(ItemSearchResult result) {
+        return result.getItems().stream().map(Item::getId).collect(Collectors.toList());
+    }
+
+    private Book createBook(String name, String author, String isbn) {
+        Book book = new Book();
+        book.setName(name);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book;
+    }
+}
@@ -6,11 +6,15 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 
+import static org.junit.Assert.assertEquals;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest
+@Transactional
 public class ItemUpdateTest {
 
     @Autowired
@@ -18,14 +22,27 @@ public class ItemUpdateTest {
 
     @Test
     public void updateTest() throws Exception {
-        Book book = em.find(Book.class, 1);
+        //given
+        Book saved = new Book();
+        saved.setName("JPA");
+        saved.setPrice(10000);
+        saved.setStockQuantity(10);
+        em.persist(saved);
+        em.flush();
+        em.clear();
+
+        //when
+        Book book = em.find(Book.class, saved.getId()); // id 는 Long
 
         //TX
         book.setName("asdfaf");
 
         //변경 감지 == dirty checking
         //TX commit
+        em.flush();
+        em.clear();
 
-
+        //then
+        assertEquals("asdfaf", em.find(Book.class, saved.getId()).getName());
     }
 }
@@ -0,0 +1,120 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderSearch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.member.name-index.enabled=true",
+        "jpashop.member.name-index.max-candidates=10",
+        "spring.datasource.url=jdbc:h2:mem:nameindex",
+        "spring.jpa.properties.hibernate.cache.region_prefix=nameindex", //다른 DB 를 쓰므로 2차 캐시도 따로
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"})
+public class MemberNameIndexTest {
+
+    @Autowired MemberService memberService;
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberNameIndex memberNameIndex;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 회원이름_포함_검색() throws Exception {
+        //given
+        Book book = createBook();
+        Member hong = join("홍길동");
+        Member kim = join("Kim Gildong");
+        join("이몽룡");
+        orderService.order(hong.getId(), book.getId(), 1);
+        orderService.order(kim.getId(), book.getId(), 1);
+        orderService.order(kim.getId(), book.getId(), 1);
+
+        //when
+        List<Order> orders = orderService.findOrders(search("길동"));
+        List<Order> latin = orderService.findOrders(search("GILDONG"));
+        List<Order> none = orderService.findOrders(search("춘향"));
+
+        //then
+        assertEquals(1, memberNameIndex.findContaining("길동").size());
+        assertEquals("이름에 길동이 들어간 회원의 주문", 1, orders.size());
+        assertEquals(hong.getId(), orders.get(0).getMember().getId());
+        assertEquals("대소문자 구분 없이", 2, latin.size());
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    public void 이름변경_색인반영() throws Exception {
+        //given
+        Member member = join("성춘향");
+
+        //when
+        memberService.update(member.getId(), "월매");
+
+        //then
+        assertTrue("이전 이름으로는 찾지 않는다", memberNameIndex.findContaining("춘향").isEmpty());
+        assertTrue(memberNameIndex.findContaining("월매").contains(member.getId()));
+    }
+
+    @Test
+    public void 롤백되면_색인하지_않음() throws Exception {
+        //when - 색인은 커밋된 뒤에 반영
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            join("변학도");
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertTrue(memberNameIndex.findContaining("학도").isEmpty());
+    }
+
+    @Test
+    public void 후보가_많으면_DB_검색() throws Exception {
+        //given
+        for (int i = 0; i < 20; i++) {
+            join("흔한이름" + i);
+        }
+
+        //then
+        assertNull("max-candidates 를 넘으면 색인을 쓰지 않는다", memberNameIndex.findContaining("흔한"));
+        assertNull("한 글자는 색인으로 좁힐 수 없다", memberNameIndex.findContaining("흔"));
+        assertEquals(1, memberNameIndex.findContaining("흔한이름13").size());
+    }
+
+    private OrderSearch search(String memberName) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberName);
+        orderSearch.setMemberNameMatch(OrderSearch.MemberNameMatch.CONTAINS);
+        return orderSearch;
+    }
+
+    private Member join(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook() {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+        return book;
+    }
+}
@@ -1,6 +1,8 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberQueryDto;
 import jpabook.jpashop.repository.MemberRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,6 +12,11 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
@@ -19,6 +26,7 @@ public class MemberServiceTest {
 
     @Autowired MemberService memberService;
     @Autowired MemberRepository memberRepository;
+    @PersistenceContext EntityManager em;
 
     @Test
 //    transactional 이 테스트케이스에 있을경우 다 rollback해버림 test 편의성을 하기 위해서
@@ -48,4 +56,65 @@ public class MemberServiceTest {
         //then
         fail("예외가 발생해야 한다");
     }
-}
\ No newline at end of file
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_회원_이름변경() throws Exception {
+        //when
+        memberService.update(-1L, "kim");
+
+        //then
+        fail("없는 회원이면 IllegalArgumentException 이 발생해야 한다");
+    }
+
+    @Test
+    public void 이미_있는_이름으로_변경() throws Exception {
+        //given
+        Member member1 = new Member();
+        member1.setName("변경회원1");
+        Member member2 = new Member();
+        member2.setName("변경회원2");
+        memberService.join(member1);
+        memberService.join(member2);
+
+        //when - 커밋 전이라 이름 필터에는 없고 flush 에서 unique 제약 위반
+        try {
+            memberService.update(member2.getId(), "변경회원1");
+            fail("이미 있는 이름이면 IllegalStateException 이 발생해야 한다");
+        } catch (IllegalStateException e) {
+            //then
+            assertEquals("이미 존재하는 회원입니다.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void 회원목록_커서페이징() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            Member member = new Member();
+            member.setName("페이징회원" + i);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            memberService.join(member);
+        }
+        em.flush();
+        em.clear();
+
+        //when - 2건씩 끝까지
+        List<MemberQueryDto> all = new ArrayList<>();
+        Long cursor = null;
+        List<MemberQueryDto> page;
+        do {
+            page = memberService.findMembers(cursor, 2);
+            all.addAll(page);
+            cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).getId();
+        } while (page.size() == 2);
+
+        //then
+        assertEquals("전체 회원을 빠짐없이 조회", memberService.findMembers().size(), all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue("member_id 오름차순", all.get(i - 1).getId() < all.get(i).getId());
+        }
+        MemberQueryDto last = all.get(all.size() - 1);
+        assertEquals("페이징회원4", last.getName());
+        assertEquals("서울", last.getAddress().getCity());
+    }
+}
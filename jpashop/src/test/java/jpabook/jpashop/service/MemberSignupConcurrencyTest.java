@@ -0,0 +1,98 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 가입 트랜잭션을 스레드마다 따로 커밋해야 하므로 @Transactional 없이 실행
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MemberSignupConcurrencyTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberNameFilter memberNameFilter;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    public void 동시가입_중복없음() throws Exception {
+        //given - 이름 100개를 4번씩 동시에 가입
+        int names = 100;
+        int attempts = 4;
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger duplicate = new AtomicInteger();
+        AtomicInteger error = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch ready = new CountDownLatch(1);
+
+        //when
+        for (int i = 0; i < names * attempts; i++) {
+            String name = "동시가입" + (i % names);
+            executor.submit(() -> {
+                try {
+                    ready.await();
+                    memberService.join(createMember(name));
+                    success.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    duplicate.incrementAndGet();
+                } catch (Exception e) {
+                    error.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        //then
+        assertEquals("중복 가입은 IllegalStateException 이어야 한다", 0, error.get());
+        assertEquals("이름당 한번만 가입", names, success.get());
+        assertEquals(names * (attempts - 1), duplicate.get());
+        for (int i = 0; i < names; i++) {
+            assertEquals(1, memberRepository.findByName("동시가입" + i).size());
+        }
+    }
+
+    @Test
+    public void 새이름_가입시_중복조회_생략() throws Exception {
+        //given
+        int count = 1000;
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //when
+        for (int i = 0; i < count; i++) {
+            memberService.join(createMember("새회원" + i));
+        }
+
+        //then - insert 만 (시퀀스는 allocation_size 마다 한번), 가입 지연시간은 jmh 의 MemberServiceBenchmark.joinLatency
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue("bloom filter 에 없는 이름은 중복 조회를 하지 않아야 한다", statements <= count + count / 50 + 1);
+        assertTrue(memberNameFilter.mightContain("새회원0"));
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+}
@@ -0,0 +1,229 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderEvent;
+import jpabook.jpashop.domain.OrderEventType;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderEventRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 주문 트랜잭션이 커밋되어야 outbox 이벤트가 보이므로 @Transactional 없이 실행
+ * relay 는 테스트에서 직접 호출 (test application.yml 에서 주기 실행은 1시간)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.outbox.relay.batch-size=200",
+        "jpashop.outbox.file-sink.path=${java.io.tmpdir}/jpashop-outbox-test/events.jsonl",
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "spring.jpa.properties.hibernate.cache.region_prefix=outbox", //다른 DB 를 쓰므로 2차 캐시도 따로
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"})
+public class OrderEventRelayTest {
+
+    private static final Path FILE = Paths.get(System.getProperty("java.io.tmpdir"), "jpashop-outbox-test", "events.jsonl");
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderEventRelay orderEventRelay;
+    @Autowired OrderEventRepository orderEventRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired List<OrderEvent> received;
+
+    @TestConfiguration
+    static class ListenerConfig {
+        @Bean
+        List<OrderEvent> received() {
+            return Collections.synchronizedList(new ArrayList<>());
+        }
+
+        @Bean
+        Listener listener(List<OrderEvent> received) {
+            return new Listener(received);
+        }
+    }
+
+    static class Listener {
+        private final List<OrderEvent> received;
+
+        Listener(List<OrderEvent> received) {
+            this.received = received;
+        }
+
+        @EventListener
+        public void on(OrderEvent event) {
+            received.add(event);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        orderEventRelay.relay();
+        received.clear();
+        Files.deleteIfExists(FILE);
+    }
+
+    @Test
+    public void 주문_취소_이벤트_전달() throws Exception {
+        //given
+        Member member = createMember("이벤트회원");
+        Book book = createBook("이벤트 JPA", 10);
+
+        //when
+        Long orderId = orderService.order(member.getId(), book.getId(), 3);
+        orderService.cancelOrder(orderId);
+        int sent = orderEventRelay.relay();
+
+        //then - 주문, 재고(-3), 취소, 재고(+3) 순서
+        assertEquals(4, sent);
+        assertEquals(0, orderEventRepository.countPending());
+        assertEquals(List.of(OrderEventType.ORDER_PLACED, OrderEventType.STOCK_CHANGED,
+                        OrderEventType.ORDER_CANCELLED, OrderEventType.STOCK_CHANGED),
+                received.stream().map(OrderEvent::getType).collect(Collectors.toList()));
+        JsonNode placed = objectMapper.readTree(received.get(0).getPayload());
+        assertEquals(orderId.longValue(), placed.get("orderId").asLong());
+        assertEquals(30000, placed.get("totalPrice").asInt());
+        assertEquals(-3, objectMapper.readTree(received.get(1).getPayload()).get("quantity").asInt());
+        assertEquals(3, objectMapper.readTree(received.get(3).getPayload()).get("quantity").asInt());
+
+        List<String> lines = Files.readAllLines(FILE, StandardCharsets.UTF_8);
+        assertEquals("파일 sink 에도 같은 순서로", 4, lines.size());
+        assertEquals("ORDER_PLACED", objectMapper.readTree(lines.get(0)).get("type").asText());
+        assertEquals(book.getId().longValue(), objectMapper.readTree(lines.get(1)).get("aggregateId").asLong());
+    }
+
+    @Test
+    public void 주문_롤백시_이벤트없음() throws Exception {
+        //given
+        Member member = createMember("롤백이벤트회원");
+        Book book = createBook("롤백이벤트 JPA", 1);
+
+        //when - 재고 부족으로 주문 롤백
+        try {
+            orderService.order(member.getId(), book.getId(), 2);
+            fail("재고가 부족하면 예외가 발생해야 한다");
+        } catch (RuntimeException expected) {
+        }
+
+        //then
+        assertEquals(0, orderEventRepository.countPending());
+    }
+
+    @Test
+    public void 큰_장바구니_주문_이벤트() throws Exception {
+        //given - 상품 200개 (payload 가 varchar(4000) 을 넘는 크기)
+        Member member = createMember("큰장바구니회원");
+        Map<Long, Integer> itemCounts = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            itemCounts.put(createBook("큰장바구니 JPA " + i, 10).getId(), 1);
+        }
+
+        //when
+        Long orderId = orderService.order(member.getId(), itemCounts);
+        orderEventRelay.relay();
+
+        //then
+        OrderEvent placed = received.stream()
+                .filter(event -> event.getType() == OrderEventType.ORDER_PLACED)
+                .findFirst()
+                .orElseThrow();
+        assertTrue(placed.getPayload().length() > 4000);
+        JsonNode payload = objectMapper.readTree(placed.getPayload());
+        assertEquals(orderId.longValue(), payload.get("orderId").asLong());
+        assertEquals(200, payload.get("orderItems").size());
+    }
+
+    @Test
+    public void sink_실패시_다시_전달() throws Exception {
+        //given
+        Member member = createMember("재전달회원");
+        Book book = createBook("재전달 JPA", 10);
+        orderService.order(member.getId(), book.getId(), 1);
+        List<OrderEvent> delivered = new ArrayList<>();
+        OrderEventRelay failing = new OrderEventRelay(List.of(
+                events -> delivered.addAll(events),
+                events -> {
+                    throw new IllegalStateException("sink down");
+                }), orderEventRepository, transactionManager, 100);
+
+        //when
+        int sent = failing.relay();
+
+        //then - 앞 sink 에는 전달됐지만 outbox 에 남아서 다음에 다시 보낸다 (at-least-once)
+        assertEquals(0, sent);
+        assertEquals(1, failing.getFailureCount());
+        assertEquals(2, delivered.size());
+        assertEquals(2, orderEventRepository.countPending());
+        assertEquals(2, orderEventRelay.relay());
+        assertEquals(delivered.stream().map(OrderEvent::getId).collect(Collectors.toList()),
+                received.stream().map(OrderEvent::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void relay_여러_배치() throws Exception {
+        //given - outbox 에 batch-size(200) 의 5배 (처리량은 jmh 의 OrderEventRelayBenchmark)
+        int events = 1000;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < events; i++) {
+                orderEventRepository.save(OrderEvent.create(OrderEventType.STOCK_CHANGED, (long) i,
+                        "{\"itemId\":" + i + ",\"quantity\":-1}"));
+            }
+        });
+
+        //when
+        int sent = orderEventRelay.relay();
+
+        //then
+        assertEquals(events, sent);
+        assertEquals(0, orderEventRepository.countPending());
+        Set<Long> ids = received.stream().map(OrderEvent::getId).collect(Collectors.toCollection(TreeSet::new));
+        assertEquals("중복 없이 전부", events, ids.size());
+        assertEquals(events, Files.readAllLines(FILE, StandardCharsets.UTF_8).size());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}
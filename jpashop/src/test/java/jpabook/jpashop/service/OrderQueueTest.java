@@ -0,0 +1,148 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * worker 가 주문을 따로 커밋하므로 @Transactional 없이 실행
+ * 큐 처리량은 jmh 의 OrderQueueBenchmark
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.order.async.enabled=true",
+        "jpashop.order.async.workers=2",
+        "jpashop.order.async.batch-size=20",
+        "spring.datasource.url=jdbc:h2:mem:orderqueue",
+        "spring.jpa.properties.hibernate.cache.region_prefix=orderqueue", //다른 DB 를 쓰므로 2차 캐시도 따로
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"})
+public class OrderQueueTest {
+
+    @Autowired OrderQueue orderQueue;
+    @Autowired OrderService orderService;
+    @Autowired OrderFacade orderFacade;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 동시접수_모두처리() throws Exception {
+        //given
+        int requests = 500;
+        Member member = createMember("큐회원");
+        Book book1 = createBook("큐 JPA1", requests);
+        Book book2 = createBook("큐 JPA2", requests);
+        List<OrderTicket> tickets = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch ready = new CountDownLatch(1);
+
+        //when
+        for (int i = 0; i < requests; i++) {
+            Book book = i % 2 == 0 ? book1 : book2;
+            executor.submit(() -> {
+                ready.await();
+                tickets.add(orderQueue.submit(member.getId(), Collections.singletonMap(book.getId(), 2)));
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        awaitFinished(tickets);
+
+        //then
+        for (OrderTicket ticket : tickets) {
+            assertEquals(ticket.getMessage(), OrderTicket.Status.COMPLETED, ticket.getStatus());
+            assertNotNull(ticket.getOrderId());
+            assertSame(ticket, orderQueue.findTicket(ticket.getId()));
+        }
+        assertEquals("주문 수량만큼 재고 감소", 0, itemService.findOne(book1.getId()).getStockQuantity());
+        assertEquals("주문 수량만큼 재고 감소", 0, itemService.findOne(book2.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 재고부족_주문만_실패() throws Exception {
+        //given
+        Member member = createMember("부족회원");
+        Book book = createBook("부족 JPA", 5);
+
+        //when - 한 배치 안에서 재고 부족이 나도 나머지 주문은 처리
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tickets.add(orderQueue.submit(member.getId(), Collections.singletonMap(book.getId(), 1)));
+        }
+        awaitFinished(tickets);
+
+        //then
+        long completed = tickets.stream().filter(ticket -> ticket.getStatus() == OrderTicket.Status.COMPLETED).count();
+        long failed = tickets.stream().filter(ticket -> ticket.getStatus() == OrderTicket.Status.FAILED).count();
+        assertEquals("재고 수량만큼만 주문", 5, completed);
+        assertEquals(5, failed);
+        assertEquals(0, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 잘못된_수량_접수거절() throws Exception {
+        orderQueue.submit(1L, Collections.singletonMap(1L, 0));
+    }
+
+    @Test
+    public void 큐가_차면_접수거절() throws Exception {
+        //given - worker 를 시작하지 않은 큐 (용량 2)
+        OrderQueue queue = new OrderQueue(2, 1, 10, 60000, orderService, orderFacade, transactionManager);
+        queue.submit(1L, Collections.singletonMap(1L, 1));
+        queue.submit(1L, Collections.singletonMap(1L, 1));
+
+        //when
+        try {
+            queue.submit(1L, Collections.singletonMap(1L, 1));
+            fail("큐가 차면 OrderQueueFullException 이 발생해야 한다");
+        } catch (OrderQueueFullException expected) {
+        }
+
+        //then
+        assertEquals(2, queue.size());
+    }
+
+    private void awaitFinished(List<OrderTicket> tickets) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (tickets.stream().anyMatch(ticket -> !ticket.isFinished())) {
+            assertTrue("주문 처리 시간 초과", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}
@@ -7,7 +7,12 @@ import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.OrderExportRow;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +22,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -67,6 +76,34 @@ public class OrderServiceTest {
         fail("재고 수량 부족 예외가 발생해야 한다");
     }
 
+    @Test
+    public void 없는_상품_주문() throws Exception {
+        //given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+
+        //when - 재고 부족이 아니라 없는 상품으로
+        try {
+            orderService.order(member.getId(), Map.of(item.getId(), 1, -1L, 1));
+            fail("없는 상품이면 IllegalArgumentException 이 발생해야 한다");
+        } catch (IllegalArgumentException e) {
+            //then
+            assertTrue(e.getMessage(), e.getMessage().contains("id=-1"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_회원_주문() throws Exception {
+        //given
+        Item item = createBook("시골 JPA", 10000, 10);
+
+        //when
+        orderService.order(-1L, item.getId(), 1);
+
+        //then
+        fail("없는 회원이면 IllegalArgumentException 이 발생해야 한다");
+    }
+
     @Test
     public void 주문취소 () throws Exception {
 
@@ -88,10 +125,154 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다", 10, item.getStockQuantity());
     }
 
+    @Test
+    public void 주문검색_쿼리수() throws Exception {
+        //given
+        Member member = createMember("검색회원");
+        for (int i = 0; i < 30; i++) {
+            Book book = createBook("시골 JPA " + i, 10000, 10);
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getName());
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //when - orderList.html 과 같이 연관 엔티티 접근
+        List<Order> orders = orderService.findOrders(orderSearch);
+        for (Order order : orders) {
+            order.getMember().getName();
+            order.getDelivery().getStatus();
+            order.getOrderItems().get(0).getItem().getName();
+        }
+
+        //then
+        assertEquals("검색된 주문 수", 30, orders.size());
+        //주문 1번 + orderItems, item 은 IN 쿼리로 batch 조회 (N+1 이면 1 + 30 + 30)
+        assertTrue("주문 수와 무관하게 쿼리 수가 일정해야 한다", statistics.getPrepareStatementCount() <= 5);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void 주문검색_커서페이징() throws Exception {
+        //given
+        Member member = createMember("페이징회원");
+        Book book = createBook("시골 JPA", 10000, 10);
+        for (int i = 0; i < 5; i++) {
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getName());
+
+        //when
+        List<Order> page1 = orderService.findOrders(orderSearch, null, 2);
+        List<Order> page2 = orderService.findOrders(orderSearch, page1.get(1).getId(), 2);
+        List<Order> page3 = orderService.findOrders(orderSearch, page2.get(1).getId(), 2);
+
+        //then
+        assertEquals(2, page1.size());
+        assertEquals(2, page2.size());
+        assertEquals("마지막 페이지", 1, page3.size());
+        assertTrue("최신 주문부터 조회해야 한다", page1.get(0).getId() > page1.get(1).getId());
+        assertTrue("다음 페이지는 cursor 이후 주문", page1.get(1).getId() > page2.get(0).getId());
+        assertTrue(page2.get(1).getId() > page3.get(0).getId());
+    }
+
+    @Test
+    public void 주문검색_상품_가격조건() throws Exception {
+        //given
+        Member member = createMember("조건회원");
+        Book cheap = createBook("싼 책", 1000, 10);
+        Book expensive = createBook("비싼 책", 50000, 10);
+        Long cheapOrderId = orderService.order(member.getId(), cheap.getId(), 1);
+        Long expensiveOrderId = orderService.order(member.getId(), expensive.getId(), 1);
+
+        OrderSearch byItem = new OrderSearch();
+        byItem.setMemberName("조건");
+        byItem.setItemId(cheap.getId());
+
+        OrderSearch byPrice = new OrderSearch();
+        byPrice.setMemberName("조건");
+        byPrice.setMinPrice(10000);
+
+        //when
+        List<Order> itemOrders = orderService.findOrders(byItem);
+        List<Order> priceOrders = orderService.findOrders(byPrice);
+
+        //then
+        assertEquals(1, itemOrders.size());
+        assertEquals(cheapOrderId, itemOrders.get(0).getId());
+        assertEquals(1, priceOrders.size());
+        assertEquals(expensiveOrderId, priceOrders.get(0).getId());
+    }
+
+    @Test
+    public void 여러상품_주문() throws Exception {
+        //given
+        Member member = createMember();
+        Book book1 = createBook("시골 JPA", 10000, 10);
+        Book book2 = createBook("시골 스프링", 20000, 10);
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book2.getId(), 3);
+        itemCounts.put(book1.getId(), 1);
+
+        //when
+        Long orderId = orderService.order(member.getId(), itemCounts);
+
+        //then
+        Order getOrder = orderRepository.findOne(orderId);
+        assertEquals("주문 1건에 주문상품 2개", 2, getOrder.getOrderItems().size());
+        assertEquals(10000 + 20000 * 3, getOrder.getTotalPrice());
+        assertEquals(9, book1.getStockQuantity());
+        assertEquals(7, book2.getStockQuantity());
+    }
+
+    @Test
+    public void 주문_내보내기() throws Exception {
+        //given
+        Member member = createMember("내보내기회원");
+        Book book1 = createBook("내보내기 JPA", 10000, 10);
+        Book book2 = createBook("내보내기 스프링", 20000, 10);
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book1.getId(), 1);
+        itemCounts.put(book2.getId(), 2);
+        Long firstOrderId = orderService.order(member.getId(), itemCounts);
+        Long secondOrderId = orderService.order(member.getId(), book1.getId(), 3);
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("내보내기");
+
+        //when
+        List<OrderExportRow> rows = new ArrayList<>();
+        orderService.exportOrders(orderSearch, rows::add);
+
+        //then
+        assertEquals("주문상품 한건당 한 행", 3, rows.size());
+        assertEquals("최신 주문부터", secondOrderId, rows.get(0).getOrderId());
+        assertEquals(3, rows.get(0).getCount());
+        assertEquals(firstOrderId, rows.get(1).getOrderId());
+        assertEquals("내보내기회원", rows.get(1).getMemberName());
+        assertEquals("서울", rows.get(1).getCity());
+        assertEquals("내보내기 JPA", rows.get(1).getItemName());
+        assertEquals(20000, rows.get(2).getOrderPrice());
+        assertEquals("entity 를 영속성 컨텍스트에 올리지 않아야 한다",
+                0, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
 
     private Member createMember() {
+        return createMember("회원1");
+    }
+
+    private Member createMember(String name) {
         Member member = new Member();
-        member.setName("회원1");
+        member.setName(name);
         member.setAddress(new Address("서울", "강가", "123-123"));
         em.persist(member);
         return member;
@@ -0,0 +1,117 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.SalesPeriod;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.SalesRollupRow;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class SalesRollupServiceTest {
+
+    @PersistenceContext EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired SalesRollupService salesRollupService;
+
+    LocalDateTime today = LocalDate.now().atStartOfDay();
+    LocalDateTime tomorrow = today.plusDays(1);
+
+    @Test
+    public void 주문_취소_집계() throws Exception {
+        //given - 다른 테스트가 커밋한 오늘 주문이 있을 수 있으므로 차이로 비교
+        SalesRollupRow before = today();
+        Member member = createMember("집계회원");
+        Book book1 = createBook("집계 JPA", 10000);
+        Book book2 = createBook("집계 SQL", 20000);
+
+        //when
+        Long first = orderService.order(member.getId(), book1.getId(), 2);
+        orderService.order(member.getId(), Map.of(book1.getId(), 1, book2.getId(), 3));
+        orderService.cancelOrder(first);
+
+        //then
+        SalesRollupRow after = today();
+        assertEquals("주문 수", 2, after.getOrderCount() - before.getOrderCount());
+        assertEquals("수량", 6, after.getUnits() - before.getUnits());
+        assertEquals("매출", 90000, after.getRevenue() - before.getRevenue());
+        assertEquals("취소 수", 1, after.getCancelCount() - before.getCancelCount());
+        assertEquals("취소 매출", 20000, after.getCancelRevenue() - before.getCancelRevenue());
+
+        List<SalesRollupRow> top = salesRollupService.findTopItems(SalesPeriod.DAY, today, tomorrow, 1000);
+        SalesRollupRow item1 = top.stream().filter(row -> row.getItemId().equals(book1.getId())).findFirst().get();
+        SalesRollupRow item2 = top.stream().filter(row -> row.getItemId().equals(book2.getId())).findFirst().get();
+        assertEquals(2, item1.getOrderCount());
+        assertEquals("취소 후 순매출", 10000, item1.getNetRevenue());
+        assertEquals(60000, item2.getNetRevenue());
+        assertTrue("순매출 순서", top.indexOf(item2) < top.indexOf(item1));
+
+        List<SalesRollupRow> hourly = salesRollupService.findItemSeries(book2.getId(), SalesPeriod.HOUR, today, tomorrow);
+        assertEquals(1, hourly.size());
+        assertEquals(SalesPeriod.HOUR.truncate(em.find(Order.class, first).getOrderDate()), hourly.get(0).getBucket());
+        assertEquals(3, hourly.get(0).getUnits());
+    }
+
+    @Test
+    public void 집계는_주문을_다시_계산한_것과_같다() throws Exception {
+        //given
+        int orders = 100;
+        Member member = createMember("집계확인회원");
+        Book book = createBook("집계확인 JPA", 1000);
+        book.setStockQuantity(orders);
+        for (int i = 0; i < orders; i++) {
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        em.flush();
+        em.clear();
+
+        //when - 주문과 주문상품을 모두 읽어서 합계
+        long scanRevenue = em.createQuery("select o from Order o", Order.class).getResultList().stream()
+                .filter(order -> order.getOrderDate().isAfter(today))
+                .mapToLong(Order::getTotalPrice)
+                .sum();
+        em.clear();
+
+        //then
+        assertEquals("집계는 주문을 다시 계산한 것과 같아야 한다", scanRevenue, today().getRevenue());
+    }
+
+    private SalesRollupRow today() {
+        List<SalesRollupRow> totals = salesRollupService.findTotals(SalesPeriod.DAY, today, tomorrow);
+        return totals.isEmpty() ? new SalesRollupRow(today, null, 0, 0, 0, 0, 0, 0) : totals.get(0);
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.OrderSearch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 트랜잭션을 스레드마다 따로 커밋해야 하므로 @Transactional 없이 실행
+ * 동시 주문 처리량은 jmh 의 OrderConcurrencyBenchmark
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockConcurrencyTest {
+
+    @Autowired OrderFacade orderFacade;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 동시주문_초과판매_없음() throws Exception {
+        //given
+        int stock = 500;
+        int requests = 2000;
+        int threads = 32;
+
+        Member member = new Member();
+        member.setName("동시주문회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+
+        Book book = new Book();
+        book.setName("한정판 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stock);
+        itemService.saveItem(book);
+
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger error = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+
+        //when
+        for (int i = 0; i < requests; i++) {
+            executor.submit(() -> {
+                try {
+                    ready.await();
+                    orderFacade.order(member.getId(), book.getId(), 1);
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    soldOut.incrementAndGet();
+                } catch (Exception e) {
+                    error.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        //then
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setItemId(book.getId());
+        assertEquals("예외 없이 주문 성공 또는 재고 부족이어야 한다", 0, error.get());
+        assertEquals("재고 수량만큼만 주문되어야 한다", stock, success.get());
+        assertEquals(requests - stock, soldOut.get());
+        assertEquals("재고는 0 이어야 한다", 0, itemService.findOne(book.getId()).getStockQuantity());
+        assertEquals("주문 건수", stock, orderService.findOrders(orderSearch).size());
+    }
+}
@@ -0,0 +1,207 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.StockDelta;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.StockDeltaRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.stock.ledger.enabled=true",
+        "jpashop.stock.ledger.flush-interval=3600000",
+        "spring.datasource.url=jdbc:h2:mem:ledger",
+        "spring.jpa.properties.hibernate.cache.region_prefix=ledger", //다른 DB 를 쓰므로 2차 캐시도 따로
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"})
+public class StockLedgerTest {
+
+    @Autowired OrderFacade orderFacade;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired StockLedger stockLedger;
+    @Autowired StockDeltaRepository stockDeltaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 동시주문_메모리장부_초과판매_없음() throws Exception {
+        //given
+        int stock = 300;
+        int requests = 1000;
+        Member member = createMember("장부회원");
+        Book book = createBook("장부 JPA", stock);
+
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch ready = new CountDownLatch(1);
+
+        //when
+        for (int i = 0; i < requests; i++) {
+            executor.submit(() -> {
+                ready.await();
+                try {
+                    orderFacade.order(member.getId(), book.getId(), 1);
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    soldOut.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        //then
+        assertEquals("재고 수량만큼만 주문되어야 한다", stock, success.get());
+        assertEquals(requests - stock, soldOut.get());
+        assertEquals(0, stockLedger.getAvailable(book.getId()));
+        assertEquals("반영 전에는 item 테이블 재고가 그대로", stock, itemService.findOne(book.getId()).getStockQuantity());
+
+        stockLedger.flush();
+        assertEquals("반영 후 item 테이블 재고", 0, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 주문실패시_장부_원복() throws Exception {
+        //given
+        Member member = createMember("롤백회원");
+        Book book = createBook("롤백 JPA", 10);
+        Book soldOut = createBook("품절 JPA", 1);
+
+        //when - 첫 상품을 차감한 뒤 두번째 상품 재고 부족 -> 트랜잭션 롤백
+        try {
+            orderService.order(member.getId(), Map.of(book.getId(), 3, soldOut.getId(), 2));
+            fail("재고가 부족하면 예외가 발생해야 한다");
+        } catch (NotEnoughStockException expected) {
+        }
+
+        //then
+        assertEquals(10, stockLedger.getAvailable(book.getId()));
+    }
+
+    @Test
+    public void 주문취소_장부_원복() throws Exception {
+        //given
+        Member member = createMember("취소회원");
+        Book book = createBook("취소 JPA", 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 4);
+
+        //when
+        orderService.cancelOrder(orderId);
+
+        //then
+        assertEquals(10, stockLedger.getAvailable(book.getId()));
+        stockLedger.flush();
+        assertEquals(10, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 관리자_재고수정_진행중_주문_유지() throws Exception {
+        //given - 3 개를 차감한 주문 트랜잭션이 아직 커밋 전
+        Book book = createBook("수정 JPA", 10);
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                stockLedger.reserve(book.getId(), 3);
+                reserved.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            return null;
+        });
+        assertTrue(reserved.await(10, TimeUnit.SECONDS));
+
+        //when - 관리자가 남은 재고를 20 으로 수정한 뒤 주문이 커밋
+        itemService.updateItem(book.getId(), book.getName(), book.getPrice(), 20);
+        assertEquals(20, stockLedger.getAvailable(book.getId()));
+        commit.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //then - 진행 중이던 주문분이 사라지거나 두번 빠지지 않는다
+        assertEquals(20, stockLedger.getAvailable(book.getId()));
+        stockLedger.flush();
+        assertEquals(20, itemService.findOne(book.getId()).getStockQuantity());
+
+        //when - 줄이는 경우
+        itemService.updateItem(book.getId(), book.getName(), book.getPrice(), 5);
+
+        //then
+        assertEquals(5, stockLedger.getAvailable(book.getId()));
+        stockLedger.flush();
+        assertEquals(5, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 장부에_없는_상품_원복후_차감() throws Exception {
+        //given - 재시작 전 주문의 취소처럼 아직 장부에 올라가지 않은 상품
+        Book book = createBook("원복 JPA", 10);
+
+        //when - 같은 트랜잭션에서 원복 뒤에 장부를 처음 읽음
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            stockLedger.release(book.getId(), 5);
+            stockLedger.reserve(book.getId(), 1);
+        });
+
+        //then - 원복분이 시작값과 커밋 후에 두번 더해지지 않는다
+        assertEquals(14, stockLedger.getAvailable(book.getId()));
+    }
+
+    @Test
+    public void 재시작시_남은_변경분_반영() throws Exception {
+        //given - 반영 전에 서버가 죽어서 StockDelta 만 남은 상태
+        Book book = createBook("복구 JPA", 10);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            stockDeltaRepository.save(StockDelta.create(book.getId(), -2));
+            stockDeltaRepository.save(StockDelta.create(book.getId(), -3));
+        });
+
+        //when
+        stockLedger.reconcile();
+
+        //then
+        assertEquals(5, itemService.findOne(book.getId()).getStockQuantity());
+        assertTrue(stockDeltaRepository.findPending(10).isEmpty());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}